@@ -0,0 +1,74 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building a track message with defensive map copies against {@link
+ * TrackMessage.Builder#adoptMaps()}. Run with {@code -prof gc} and compare {@code
+ * gc.alloc.rate.norm}, the bytes allocated per message:
+ *
+ * <pre>java -jar benchmarks/target/benchmarks.jar AdoptMapsBenchmark -prof gc</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AdoptMapsBenchmark {
+  @Param({"10", "50"})
+  int propertyCount;
+
+  Map<String, Object> properties;
+  Map<String, Object> context;
+  Map<String, Object> options;
+
+  @Setup
+  public void setUp() {
+    properties = new LinkedHashMap<>();
+    for (int i = 0; i < propertyCount; i++) {
+      properties.put("property_" + i, i % 2 == 0 ? "value " + i : i);
+    }
+    properties.put("nested", new LinkedHashMap<>(properties));
+    context = Payloads.context();
+    options = Collections.<String, Object>singletonMap("region", "eu");
+  }
+
+  @Benchmark
+  public TrackMessage defensive() {
+    return TrackMessage.builder("Order Completed")
+        .userId("user")
+        .context(context)
+        .properties(properties)
+        .integrationOptions("Amplitude", options)
+        .build();
+  }
+
+  @Benchmark
+  public TrackMessage adopted() {
+    return TrackMessage.builder("Order Completed")
+        .adoptMaps()
+        .userId("user")
+        .context(context)
+        .properties(properties)
+        .integrationOptions("Amplitude", options)
+        .build();
+  }
+}
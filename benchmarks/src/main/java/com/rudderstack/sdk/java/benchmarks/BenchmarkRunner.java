@@ -0,0 +1,42 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The main class of {@code benchmarks.jar}: runs JMH with the given command line, always adding
+ * the GC profiler so that every suite reports its allocation rate ({@code gc.alloc.rate} and
+ * {@code gc.alloc.rate.norm}, in bytes per operation).
+ *
+ * <pre>java -jar benchmarks/target/benchmarks.jar [JMH options] [benchmark regexps]</pre>
+ */
+public final class BenchmarkRunner {
+  private BenchmarkRunner() {
+    throw new AssertionError("No instances.");
+  }
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+        || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+      // Listing and help are handled by JMH's own main.
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    OptionsBuilder options = new OptionsBuilder();
+    options.parent(commandLine);
+    // JMH reports nothing if a profiler is added twice, so respect an explicit -prof gc.
+    boolean gc = false;
+    for (ProfilerConfig profiler : commandLine.getProfilers()) {
+      String name = profiler.getKlass();
+      gc |= name.equals("gc") || name.equals(GCProfiler.class.getName());
+    }
+    if (!gc) {
+      options.addProfiler(GCProfiler.class);
+    }
+    new Runner(options.build()).run();
+  }
+}
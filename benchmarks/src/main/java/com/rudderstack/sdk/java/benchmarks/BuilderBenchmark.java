@@ -0,0 +1,62 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import com.rudderstack.sdk.java.messages.IdentifyMessage;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building messages: creating the builder, setting its fields and {@code build()}, which
+ * copies the maps and generates the message ID and timestamp.
+ *
+ * <pre>java -jar benchmarks/target/benchmarks.jar BuilderBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BuilderBenchmark {
+  Map<String, Object> properties;
+  Map<String, Object> context;
+
+  @Setup
+  public void setUp() {
+    properties = Payloads.properties(0);
+    context = Payloads.context();
+  }
+
+  @Benchmark
+  public Message trackMinimal() {
+    return TrackMessage.builder("Order Completed").userId("user").build();
+  }
+
+  @Benchmark
+  public Message track() {
+    return TrackMessage.builder("Order Completed")
+        .userId("user")
+        .anonymousId("c8f6d5a2-3c1e-4f69-9c5e-100000000000")
+        .context(context)
+        .properties(properties)
+        .build();
+  }
+
+  @Benchmark
+  public Message identify() {
+    return IdentifyMessage.builder().userId("user").traits(properties).build();
+  }
+}
@@ -0,0 +1,101 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import com.rudderstack.sdk.java.gson.GsonCodec;
+import com.rudderstack.sdk.java.http.JsonCodec;
+import com.rudderstack.sdk.java.jackson.JacksonCodec;
+import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.StringCache;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link JsonCodec} implementations encoding batches of realistic track events.
+ * {@code jacksonCached} is the Jackson codec sharing a {@link StringCache} holding the event name
+ * and property keys.
+ *
+ * <p>The {@code bytes} counter reports encoded bytes/s. Run with {@code -prof gc} to see the
+ * allocation rate of each codec:
+ *
+ * <pre>java -jar benchmarks/target/benchmarks.jar CodecBenchmark -prof gc</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+  @Param({"gson", "jackson", "jacksonCached"})
+  String codecName;
+
+  @Param({"100"})
+  int batchSize;
+
+  JsonCodec codec;
+  Batch batch;
+  ByteArrayOutputStream out;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Bytes {
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    batch = Payloads.trackBatch(batchSize);
+    switch (codecName) {
+      case "gson":
+        codec = GsonCodec.create();
+        break;
+      case "jackson":
+        codec = new JacksonCodec();
+        break;
+      case "jacksonCached":
+        StringCache cache = new StringCache(1024);
+        for (Message message : batch.batch()) {
+          TrackMessage track = (TrackMessage) message;
+          cache.intern(track.event());
+          for (String key : track.properties().keySet()) {
+            cache.intern(key);
+          }
+        }
+        codec = new JacksonCodec(cache);
+        break;
+      default:
+        throw new IllegalArgumentException(codecName);
+    }
+    out = new ByteArrayOutputStream(64 * 1024);
+  }
+
+  @Benchmark
+  public int encode(Bytes bytes) throws IOException {
+    out.reset();
+    codec.encode(batch, out);
+    bytes.bytes += out.size();
+    return out.size();
+  }
+}
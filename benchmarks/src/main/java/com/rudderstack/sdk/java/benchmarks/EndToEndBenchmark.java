@@ -0,0 +1,76 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import com.rudderstack.sdk.java.RudderAnalytics;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the whole path of a message, from {@code enqueue} through batching, encoding and
+ * upload to an in-process fake {@code RudderService} that reads the request body and answers 200.
+ * Each invocation enqueues one batch of realistic track events and waits for it to be uploaded;
+ * scores are per message.
+ *
+ * <pre>java -jar benchmarks/target/benchmarks.jar EndToEndBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+  static final int BATCH_SIZE = 250;
+
+  RudderAnalytics analytics;
+  Map<String, Object> context;
+  List<Map<String, Object>> properties;
+
+  @Setup
+  public void setUp() {
+    analytics =
+        RudderAnalytics.builder("writeKey", "http://localhost")
+            .client(new FakeClient())
+            .flushQueueSize(BATCH_SIZE)
+            .build();
+    context = Payloads.context();
+    properties = new ArrayList<>(BATCH_SIZE);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      properties.add(Payloads.properties(i));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    analytics.shutdown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void enqueueAndUpload() {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      analytics.enqueue(
+          TrackMessage.builder("Order Completed")
+              .userId("user-" + i)
+              .context(context)
+              .properties(properties.get(i)));
+    }
+    analytics.blockFlush();
+  }
+}
@@ -0,0 +1,116 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import com.rudderstack.sdk.java.RudderAnalytics;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link RudderAnalytics#enqueue} throughput with 1, 4 and 16 producer threads sharing
+ * one client, which uploads to an in-process fake, and {@link RudderAnalytics#enqueueAll} with
+ * {@value #BULK_SIZE} messages at a time. Each iteration ends with a blocking flush so that the
+ * queue does not grow across iterations.
+ *
+ * <pre>java -jar benchmarks/target/benchmarks.jar EnqueueBenchmark</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnqueueBenchmark {
+  static final int BULK_SIZE = 100;
+
+  RudderAnalytics analytics;
+  Map<String, Object> properties;
+
+  @Setup
+  public void setUp() {
+    analytics =
+        RudderAnalytics.builder("writeKey", "http://localhost")
+            .client(new FakeClient())
+            .build();
+    properties = Payloads.properties(0);
+  }
+
+  @TearDown(Level.Iteration)
+  public void drain() {
+    analytics.blockFlush();
+  }
+
+  @TearDown
+  public void tearDown() {
+    analytics.shutdown();
+  }
+
+  private void enqueue() {
+    analytics.enqueue(
+        TrackMessage.builder("Order Completed").userId("user").properties(properties));
+  }
+
+  private void enqueueAll() {
+    List<TrackMessage.Builder> builders = new ArrayList<>(BULK_SIZE);
+    for (int i = 0; i < BULK_SIZE; i++) {
+      builders.add(TrackMessage.builder("Order Completed").userId("user").properties(properties));
+    }
+    analytics.enqueueAll(builders);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void producers1() {
+    enqueue();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void producers4() {
+    enqueue();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public void producers16() {
+    enqueue();
+  }
+
+  @Benchmark
+  @Threads(1)
+  @OperationsPerInvocation(BULK_SIZE)
+  public void bulkProducers1() {
+    enqueueAll();
+  }
+
+  @Benchmark
+  @Threads(4)
+  @OperationsPerInvocation(BULK_SIZE)
+  public void bulkProducers4() {
+    enqueueAll();
+  }
+
+  @Benchmark
+  @Threads(16)
+  @OperationsPerInvocation(BULK_SIZE)
+  public void bulkProducers16() {
+    enqueueAll();
+  }
+}
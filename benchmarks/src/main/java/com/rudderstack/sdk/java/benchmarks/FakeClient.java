@@ -0,0 +1,58 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Collections;
+
+import retrofit.client.Client;
+import retrofit.client.Header;
+import retrofit.client.Request;
+import retrofit.client.Response;
+import retrofit.mime.TypedByteArray;
+
+/**
+ * An in-process Retrofit {@link Client} that reads each request body and answers 200 OK, after
+ * blocking for a simulated round trip if one is given.
+ */
+final class FakeClient implements Client {
+  private static final byte[] RESPONSE = "{\"response\":\"OK\"}".getBytes();
+
+  private final long latencyMillis;
+
+  FakeClient() {
+    this(0);
+  }
+
+  FakeClient(long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  static final OutputStream DISCARD =
+      new OutputStream() {
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] b, int off, int len) {}
+      };
+
+  @Override
+  public Response execute(Request request) throws IOException {
+    request.getBody().writeTo(DISCARD);
+    if (latencyMillis > 0) {
+      try {
+        Thread.sleep(latencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+    return new Response(
+        request.getUrl(),
+        200,
+        "OK",
+        Collections.<Header>emptyList(),
+        new TypedByteArray("application/json", RESPONSE));
+  }
+}
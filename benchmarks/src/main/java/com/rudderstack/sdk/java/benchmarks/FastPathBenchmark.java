@@ -0,0 +1,62 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import com.rudderstack.sdk.java.RudderAnalytics;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link RudderAnalytics#track} against {@code enqueue(TrackMessage.builder(...))}, against
+ * a client uploading to an in-process fake. Run with {@code -prof gc} and compare {@code
+ * gc.alloc.rate.norm}, the bytes the calling thread allocates per event:
+ *
+ * <pre>java -jar benchmarks/target/benchmarks.jar FastPathBenchmark -prof gc</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FastPathBenchmark {
+  RudderAnalytics analytics;
+  Map<String, Object> properties;
+
+  @Setup
+  public void setUp() {
+    analytics =
+        RudderAnalytics.builder("writeKey", "http://localhost")
+            .client(new FakeClient())
+            .build();
+    properties = Payloads.properties(0);
+  }
+
+  @TearDown
+  public void tearDown() {
+    analytics.shutdown();
+  }
+
+  @Benchmark
+  public void enqueueBuilder() {
+    analytics.enqueue(
+        TrackMessage.builder("Order Completed").userId("user").properties(properties));
+  }
+
+  @Benchmark
+  public void track() {
+    analytics.track("user", "Order Completed", properties);
+  }
+}
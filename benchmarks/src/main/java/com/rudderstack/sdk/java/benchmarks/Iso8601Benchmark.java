@@ -0,0 +1,37 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import com.rudderstack.sdk.java.gson.Iso8601Utils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Iso8601Utils#format}, which both codecs call for the timestamp of every
+ * message. Batch encoding as a whole is measured by {@link CodecBenchmark}.
+ *
+ * <pre>java -jar benchmarks/target/benchmarks.jar Iso8601Benchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Iso8601Benchmark {
+  final Date date = new Date(1570000000123L);
+
+  @Benchmark
+  public String format() {
+    return Iso8601Utils.format(date);
+  }
+}
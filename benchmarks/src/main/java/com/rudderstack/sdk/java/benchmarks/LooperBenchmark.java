@@ -0,0 +1,134 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import com.rudderstack.sdk.java.BatchCallback;
+import com.rudderstack.sdk.java.Log;
+import com.rudderstack.sdk.java.gson.GsonCodec;
+import com.rudderstack.sdk.java.internal.AnalyticsClient;
+import com.rudderstack.sdk.java.internal.BufferPool;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the looper assembling batches: taking messages off the queue and handing a {@link
+ * com.rudderstack.sdk.java.messages.Batch} to the network executor once {@code flushQueueSize}
+ * messages are queued. The network executor here only counts the upload tasks it is given, so
+ * encoding and upload are left out. Each invocation enqueues one batch and waits for it to be
+ * handed over; scores are per message.
+ *
+ * <pre>java -jar benchmarks/target/benchmarks.jar LooperBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LooperBenchmark {
+  static final int BATCH_SIZE = 250;
+
+  final CountingExecutor networkExecutor = new CountingExecutor();
+  AnalyticsClient client;
+  Message[] messages;
+
+  @Setup
+  public void setUp() {
+    client =
+        AnalyticsClient.create(
+            null,
+            BATCH_SIZE,
+            TimeUnit.HOURS.toMillis(1),
+            Log.NONE,
+            Executors.defaultThreadFactory(),
+            networkExecutor,
+            Collections.<BatchCallback>emptyList(),
+            null,
+            null,
+            GsonCodec.create(),
+            BufferPool.create(),
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            0);
+    messages = new Message[BATCH_SIZE];
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      messages[i] = TrackMessage.builder("Order Completed").userId("user-" + i).build();
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.shutdown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void assembleBatch() {
+    long target = networkExecutor.executed.get() + 1;
+    for (Message message : messages) {
+      client.enqueue(message);
+    }
+    while (networkExecutor.executed.get() < target) {
+      Thread.yield();
+    }
+  }
+
+  /** Counts the tasks it is given without running them. */
+  static final class CountingExecutor extends AbstractExecutorService {
+    final AtomicLong executed = new AtomicLong();
+    private volatile boolean shutdown;
+
+    @Override
+    public void execute(Runnable command) {
+      executed.incrementAndGet();
+    }
+
+    @Override
+    public void shutdown() {
+      shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      shutdown = true;
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return shutdown;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import com.rudderstack.sdk.java.BatchCallback;
+import com.rudderstack.sdk.java.Log;
+import com.rudderstack.sdk.java.gson.GsonCodec;
+import com.rudderstack.sdk.java.internal.AnalyticsClient;
+import com.rudderstack.sdk.java.internal.BufferPool;
+import com.rudderstack.sdk.java.internal.ClientMetrics;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what {@link ClientMetrics} adds to the enqueue path, with four threads enqueueing
+ * concurrently. {@code instrumented} enqueues through {@link AnalyticsClient}, which stamps each
+ * message with its enqueue time and counts it on the queue depth and the enqueued total; {@code
+ * uninstrumented} is the same hand-off without either, a put on a queue that a consumer thread
+ * drains, as the client did before it had metrics. Batches are handed to an executor that only
+ * counts them, so encoding and upload are left out.
+ *
+ * <pre>java -jar benchmarks/target/benchmarks.jar MetricsBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+  final BlockingQueue<Message> queue = new LinkedBlockingQueue<>();
+  final Message message = TrackMessage.builder("Order Completed").userId("user").build();
+  AnalyticsClient client;
+  Thread consumer;
+
+  @Setup
+  public void setUp() {
+    client =
+        AnalyticsClient.create(
+            null,
+            LooperBenchmark.BATCH_SIZE,
+            TimeUnit.HOURS.toMillis(1),
+            Log.NONE,
+            Executors.defaultThreadFactory(),
+            new LooperBenchmark.CountingExecutor(),
+            Collections.<BatchCallback>emptyList(),
+            null,
+            null,
+            GsonCodec.create(),
+            BufferPool.create(),
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            0);
+    consumer =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  while (true) {
+                    queue.take();
+                  }
+                } catch (InterruptedException e) {
+                  // Done.
+                }
+              }
+            });
+    consumer.setDaemon(true);
+    consumer.start();
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.shutdown();
+    consumer.interrupt();
+  }
+
+  @Benchmark
+  public void instrumented() {
+    client.enqueue(message);
+  }
+
+  @Benchmark
+  public void uninstrumented() throws InterruptedException {
+    queue.put(message);
+  }
+}
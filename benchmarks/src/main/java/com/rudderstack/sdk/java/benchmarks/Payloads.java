@@ -0,0 +1,84 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.EncodedMap;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Realistic payloads shared by the benchmarks. */
+final class Payloads {
+  private Payloads() {
+    throw new AssertionError("No instances.");
+  }
+
+  static final Map<String, ?> BATCH_CONTEXT;
+
+  static {
+    Map<String, Object> library = new LinkedHashMap<>();
+    library.put("name", "rudder-sdk-java");
+    library.put("version", "1.0.1");
+    Map<String, Object> context = new LinkedHashMap<>();
+    context.put("library", library);
+    BATCH_CONTEXT = EncodedMap.of(context);
+  }
+
+  /** Returns the properties of a typical e-commerce track event. */
+  static Map<String, Object> properties(int i) {
+    Map<String, Object> product = new LinkedHashMap<>();
+    product.put("product_id", "507f1f77bcf86cd79943" + (i % 1000));
+    product.put("sku", "G-32");
+    product.put("category", "Games");
+    product.put("name", "Monopoly: 3rd Edition");
+    product.put("brand", "Hasbro");
+    product.put("variant", "200 pieces");
+    product.put("price", 18.99);
+    product.put("quantity", 1 + i % 3);
+
+    Map<String, Object> properties = new LinkedHashMap<>();
+    properties.put("order_id", "50314b8e9bcf000000000000");
+    properties.put("affiliation", "Google Store");
+    properties.put("total", 27.50);
+    properties.put("revenue", 25.00);
+    properties.put("shipping", 3);
+    properties.put("tax", 2);
+    properties.put("discount", 2.5);
+    properties.put("coupon", "hasbros");
+    properties.put("currency", "USD");
+    properties.put("repeat_customer", i % 2 == 0);
+    properties.put("tags", Arrays.asList("summer", "sale", "board-games"));
+    properties.put("products", Arrays.asList(product));
+    return properties;
+  }
+
+  static Map<String, Object> context() {
+    Map<String, Object> context = new LinkedHashMap<>();
+    context.put("ip", "203.0.113.42");
+    context.put("locale", "en-US");
+    context.put("userAgent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_14_0)");
+    return context;
+  }
+
+  static TrackMessage track(int i) {
+    return TrackMessage.builder("Order Completed")
+        .userId("user-" + (i % 10000))
+        .anonymousId("c8f6d5a2-3c1e-4f69-9c5e-" + (100000000000L + i))
+        .context(context())
+        .properties(properties(i))
+        .build();
+  }
+
+  /** Returns a batch of {@code size} track messages. */
+  static Batch trackBatch(int size) {
+    List<Message> messages = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      messages.add(track(i));
+    }
+    return Batch.create(BATCH_CONTEXT, messages);
+  }
+}
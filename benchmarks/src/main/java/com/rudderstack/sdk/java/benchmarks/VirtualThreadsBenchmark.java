@@ -0,0 +1,93 @@
+package com.rudderstack.sdk.java.benchmarks;
+
+import com.rudderstack.sdk.java.RudderAnalytics;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares delivery throughput when many uploads are in flight, each blocking for a 20 ms round
+ * trip to an in-process fake: the default single upload thread, a pool of 64 platform threads, and
+ * a virtual thread per upload. Each invocation enqueues 40 batches of 25 messages and waits for
+ * them to be uploaded. {@code virtual} needs Java 21:
+ *
+ * <pre>java -jar benchmarks/target/benchmarks.jar VirtualThreadsBenchmark</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadsBenchmark {
+  static final int MESSAGES = 1000;
+
+  @Param({"single", "pool", "virtual"})
+  String uploads;
+
+  RudderAnalytics analytics;
+  Map<String, Object> properties;
+
+  @Setup
+  public void setUp() {
+    RudderAnalytics.Builder builder =
+        RudderAnalytics.builder("writeKey", "http://localhost")
+            .client(new FakeClient(20))
+            .flushQueueSize(25);
+    switch (uploads) {
+      case "single":
+        break;
+      case "pool":
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        builder.networkExecutor(pool);
+        break;
+      case "virtual":
+        if (!javaVersionAtLeast(21)) {
+          throw new IllegalStateException("Virtual threads need Java 21.");
+        }
+        builder.virtualThreads(true);
+        break;
+      default:
+        throw new IllegalArgumentException(uploads);
+    }
+    analytics = builder.build();
+    properties = Payloads.properties(0);
+  }
+
+  @TearDown
+  public void tearDown() {
+    analytics.shutdown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(MESSAGES)
+  public void deliver() {
+    for (int i = 0; i < MESSAGES; i++) {
+      analytics.enqueue(
+          TrackMessage.builder("Order Completed").userId("user").properties(properties));
+    }
+    analytics.blockFlush();
+  }
+
+  private static boolean javaVersionAtLeast(int feature) {
+    String version = System.getProperty("java.specification.version");
+    return !version.startsWith("1.") && Integer.parseInt(version) >= feature;
+  }
+}
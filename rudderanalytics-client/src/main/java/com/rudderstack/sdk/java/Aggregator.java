@@ -0,0 +1,276 @@
+package com.rudderstack.sdk.java;
+
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds high-frequency track events into one event per window, instead of queueing each of them.
+ *
+ * <p>Each configured event is aggregated per user and per combination of the values of its
+ * dimension properties. A window ends every flush interval and on every flush, when each aggregate
+ * is emitted as a track event with the same name, its dimension properties, a {@code count} of the
+ * folded events and, if the event has a value property, the {@code sum} of its values. The emitted
+ * event carries the timestamp and context of the first event folded into it.
+ *
+ * <pre>{@code
+ * Aggregator aggregator = Aggregator.builder()
+ *     .event("Request Served", "durationMs", "region", "status")
+ *     .maxKeys(10000)
+ *     .build();
+ * }</pre>
+ *
+ * <p>Accumulators are allocated up front and reused across windows. Once {@code maxKeys}
+ * aggregates are open in a window, events that would need another one are queued as is.
+ */
+@Beta
+public final class Aggregator {
+  static final String COUNT_PROPERTY = "count";
+  static final String SUM_PROPERTY = "sum";
+
+  /** Start building an {@link Aggregator}, with room for 1024 aggregates per window. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final Map<String, Rule> rules;
+  private final Accumulator[] table;
+  private final int mask;
+  private final Accumulator[] free;
+  private int freeCount;
+
+  Aggregator(Map<String, Rule> rules, int maxKeys) {
+    this.rules = rules;
+    int length = Integer.highestOneBit(Math.max(2, maxKeys) * 2 - 1) << 1;
+    this.table = new Accumulator[length];
+    this.mask = length - 1;
+    int maxDimensions = 0;
+    for (Rule rule : rules.values()) {
+      maxDimensions = Math.max(maxDimensions, rule.dimensions.length);
+    }
+    this.free = new Accumulator[maxKeys];
+    for (int i = 0; i < maxKeys; i++) {
+      free[i] = new Accumulator(maxDimensions);
+    }
+    this.freeCount = maxKeys;
+  }
+
+  /**
+   * Folds {@code message} into its aggregate, returning {@code false} if it is not aggregated and
+   * should be queued as is. The client calls this for every message it enqueues.
+   */
+  public boolean add(Message message) {
+    if (message.type() != Message.Type.track || message.userId() == null) {
+      return false;
+    }
+    TrackMessage track = (TrackMessage) message;
+    Rule rule = rules.get(track.event());
+    if (rule == null) {
+      return false;
+    }
+    Map<String, ?> properties = track.properties();
+    int hash = track.event().hashCode() * 31 + track.userId().hashCode();
+    for (String dimension : rule.dimensions) {
+      Object value = properties == null ? null : properties.get(dimension);
+      hash = hash * 31 + (value == null ? 0 : value.hashCode());
+    }
+    hash ^= hash >>> 16;
+    Object value = rule.valueProperty == null || properties == null
+        ? null
+        : properties.get(rule.valueProperty);
+
+    synchronized (this) {
+      int i = hash & mask;
+      for (Accumulator accumulator = table[i]; accumulator != null;
+          accumulator = table[i = (i + 1) & mask]) {
+        if (accumulator.hash == hash && accumulator.matches(rule, track)) {
+          accumulator.fold(value);
+          return true;
+        }
+      }
+      if (freeCount == 0) {
+        return false;
+      }
+      Accumulator accumulator = free[--freeCount];
+      free[freeCount] = null;
+      accumulator.open(hash, rule, track);
+      accumulator.fold(value);
+      table[i] = accumulator;
+      return true;
+    }
+  }
+
+  /**
+   * Ends the current window, returning a rolled-up message for each of its aggregates. The client
+   * calls this at the end of every window and on every flush.
+   */
+  public List<Message> drain() {
+    synchronized (this) {
+      if (freeCount == free.length) {
+        return Collections.emptyList();
+      }
+      List<Message> messages = new ArrayList<>(free.length - freeCount);
+      for (int i = 0; i < table.length; i++) {
+        Accumulator accumulator = table[i];
+        if (accumulator != null) {
+          messages.add(accumulator.rollUp());
+          accumulator.clear();
+          free[freeCount++] = accumulator;
+          table[i] = null;
+        }
+      }
+      return messages;
+    }
+  }
+
+  /** The dimensions and value property of an aggregated event. */
+  static final class Rule {
+    final String event;
+    final String valueProperty;
+    final String[] dimensions;
+
+    Rule(String event, String valueProperty, String[] dimensions) {
+      this.event = event;
+      this.valueProperty = valueProperty;
+      this.dimensions = dimensions;
+    }
+  }
+
+  /** The running count and sum of one aggregate. */
+  static final class Accumulator {
+    final Object[] dimensionValues;
+    int hash;
+    Rule rule;
+    String userId;
+    Date timestamp;
+    Map<String, ?> context;
+    long count;
+    double sum;
+
+    Accumulator(int maxDimensions) {
+      this.dimensionValues = new Object[maxDimensions];
+    }
+
+    void open(int hash, Rule rule, TrackMessage first) {
+      this.hash = hash;
+      this.rule = rule;
+      this.userId = first.userId();
+      this.timestamp = first.timestamp();
+      this.context = first.context();
+      Map<String, ?> properties = first.properties();
+      for (int i = 0; i < rule.dimensions.length; i++) {
+        dimensionValues[i] = properties == null ? null : properties.get(rule.dimensions[i]);
+      }
+    }
+
+    boolean matches(Rule rule, TrackMessage track) {
+      if (this.rule != rule || !userId.equals(track.userId())) {
+        return false;
+      }
+      Map<String, ?> properties = track.properties();
+      for (int i = 0; i < rule.dimensions.length; i++) {
+        Object value = properties == null ? null : properties.get(rule.dimensions[i]);
+        Object expected = dimensionValues[i];
+        if (expected == null ? value != null : !expected.equals(value)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    void fold(Object value) {
+      count++;
+      if (value instanceof Number) {
+        sum += ((Number) value).doubleValue();
+      }
+    }
+
+    TrackMessage rollUp() {
+      Map<String, Object> properties = new LinkedHashMap<>();
+      for (int i = 0; i < rule.dimensions.length; i++) {
+        if (dimensionValues[i] != null) {
+          properties.put(rule.dimensions[i], dimensionValues[i]);
+        }
+      }
+      properties.put(COUNT_PROPERTY, count);
+      if (rule.valueProperty != null) {
+        properties.put(SUM_PROPERTY, sum);
+      }
+      TrackMessage.Builder builder =
+          TrackMessage.builder(rule.event)
+              .adoptMaps()
+              .userId(userId)
+              .timestamp(timestamp)
+              .properties(properties);
+      if (context != null) {
+        builder.context(context);
+      }
+      return builder.build();
+    }
+
+    void clear() {
+      for (int i = 0; i < dimensionValues.length; i++) {
+        dimensionValues[i] = null;
+      }
+      rule = null;
+      userId = null;
+      timestamp = null;
+      context = null;
+      count = 0;
+      sum = 0;
+    }
+  }
+
+  /** Fluent API for creating {@link Aggregator} instances. */
+  public static final class Builder {
+    private final Map<String, Rule> rules = new HashMap<>();
+    private int maxKeys = 1024;
+
+    Builder() {}
+
+    /**
+     * Aggregate track events named {@code event}, per user and per combination of the values of
+     * the {@code dimensions} properties, summing the numeric {@code valueProperty}. Without a
+     * value property, only a count is kept.
+     */
+    public Builder event(String event, String valueProperty, String... dimensions) {
+      if (event == null || event.trim().length() == 0) {
+        throw new IllegalArgumentException("event cannot be null or empty.");
+      }
+      if (dimensions == null) {
+        throw new NullPointerException("Null dimensions");
+      }
+      for (String dimension : dimensions) {
+        if (dimension == null) {
+          throw new NullPointerException("Null dimension");
+        }
+      }
+      rules.put(event, new Rule(event, valueProperty, dimensions.clone()));
+      return this;
+    }
+
+    /** Set the maximum number of aggregates open in a window. */
+    public Builder maxKeys(int maxKeys) {
+      if (maxKeys < 1 || maxKeys > 1 << 24) {
+        throw new IllegalArgumentException("maxKeys must be between 1 and 2^24.");
+      }
+      this.maxKeys = maxKeys;
+      return this;
+    }
+
+    /** Create an {@link Aggregator} for the events configured so far. */
+    public Aggregator build() {
+      if (rules.isEmpty()) {
+        throw new IllegalStateException("No events to aggregate.");
+      }
+      return new Aggregator(new HashMap<>(rules), maxKeys);
+    }
+  }
+}
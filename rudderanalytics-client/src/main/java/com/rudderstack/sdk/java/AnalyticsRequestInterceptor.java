@@ -1,24 +1,23 @@
 package com.rudderstack.sdk.java;
 
 import javax.annotation.Nonnull;
-import okhttp3.Credentials;
 import retrofit.RequestInterceptor;
 
+/**
+ * Adds the headers common to every request. The Authorization header is set per upload instead, as
+ * batches may be sent with different write keys.
+ */
 class AnalyticsRequestInterceptor implements RequestInterceptor {
-  private static final String AUTHORIZATION_HEADER = "Authorization";
   private static final String USER_AGENT_HEADER = "User-Agent";
 
-  private final @Nonnull String writeKey;
   private final @Nonnull String userAgent;
 
-  AnalyticsRequestInterceptor(@Nonnull String writeKey, @Nonnull String userAgent) {
-    this.writeKey = writeKey;
+  AnalyticsRequestInterceptor(@Nonnull String userAgent) {
     this.userAgent = userAgent;
   }
 
   @Override
   public void intercept(RequestFacade request) {
-    request.addHeader(AUTHORIZATION_HEADER, Credentials.basic(writeKey, ""));
     request.addHeader(USER_AGENT_HEADER, userAgent);
   }
 }
@@ -0,0 +1,22 @@
+package com.rudderstack.sdk.java;
+
+import com.rudderstack.sdk.java.messages.Batch;
+
+/**
+ * Callback invoked once per batch when the client library is done processing it.
+ *
+ * <p>Callbacks run on a dedicated callback thread, never on the threads uploading batches, so a
+ * slow callback does not hold up uploads until the callback thread's queue is full. Per-message
+ * {@link Callback}s are dispatched through this interface as well.
+ */
+@Beta
+public interface BatchCallback {
+  /** Invoked when {@code batch} is successfully uploaded to Rudder. */
+  void success(Batch batch);
+
+  /**
+   * Invoked when the library gives up on sending {@code batch}, after exhausting retries or on
+   * other unexpected errors.
+   */
+  void failure(Batch batch, Throwable throwable);
+}
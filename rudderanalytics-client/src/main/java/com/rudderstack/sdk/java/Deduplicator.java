@@ -0,0 +1,121 @@
+package com.rudderstack.sdk.java;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers recently enqueued message IDs so that repeats can be dropped before they are uploaded.
+ *
+ * <p>IDs are kept as 64-bit hashes in two generations of open-addressing tables. New IDs go into
+ * the current generation, and once it holds {@code maxMessages} IDs or is older than the window,
+ * it becomes the previous generation and the oldest one is cleared. An ID is therefore remembered
+ * for at least {@code maxMessages} messages and at least the window, and memory stays fixed at 32
+ * to 64 bytes per remembered message.
+ */
+@Beta
+public final class Deduplicator {
+  /**
+   * Returns a deduplicator remembering at least the last {@code maxMessages} IDs, and IDs from at
+   * least the last {@code window} unless that is zero.
+   */
+  public static Deduplicator create(int maxMessages, long window, TimeUnit unit) {
+    if (maxMessages < 1) {
+      throw new IllegalArgumentException("maxMessages must not be less than 1.");
+    }
+    if (maxMessages > 1 << 28) {
+      throw new IllegalArgumentException("maxMessages must not be greater than 2^28.");
+    }
+    if (window < 0) {
+      throw new IllegalArgumentException("window must not be negative.");
+    }
+    return new Deduplicator(maxMessages, unit.toNanos(window));
+  }
+
+  private final int maxMessages;
+  private final long windowNanos;
+  private LongSet current;
+  private LongSet previous;
+  private long currentStart;
+
+  Deduplicator(int maxMessages, long windowNanos) {
+    this.maxMessages = maxMessages;
+    this.windowNanos = windowNanos;
+    this.current = new LongSet(maxMessages);
+    this.previous = new LongSet(maxMessages);
+    this.currentStart = System.nanoTime();
+  }
+
+  /** Returns {@code true} the first time {@code messageId} is seen within the window. */
+  public synchronized boolean add(String messageId) {
+    long hash = hash(messageId);
+    if (current.size >= maxMessages
+        || (windowNanos > 0 && System.nanoTime() - currentStart >= windowNanos)) {
+      LongSet oldest = previous;
+      previous = current;
+      current = oldest;
+      current.clear();
+      currentStart = System.nanoTime();
+    }
+    return !previous.contains(hash) && current.add(hash);
+  }
+
+  /** FNV-1a over the ID's characters, finished with the MurmurHash3 mixer. Never zero. */
+  static long hash(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0, length = value.length(); i < length; i++) {
+      h ^= value.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h == 0 ? 1 : h;
+  }
+
+  /** A set of non-zero longs using linear probing, kept at most half full. */
+  static final class LongSet {
+    private final long[] table;
+    private final int mask;
+    int size;
+
+    LongSet(int capacity) {
+      int length = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+      table = new long[length];
+      mask = length - 1;
+    }
+
+    boolean contains(long value) {
+      for (int i = (int) value & mask; ; i = (i + 1) & mask) {
+        long slot = table[i];
+        if (slot == value) {
+          return true;
+        }
+        if (slot == 0) {
+          return false;
+        }
+      }
+    }
+
+    /** Adds {@code value}, returning {@code false} if it was already present. */
+    boolean add(long value) {
+      for (int i = (int) value & mask; ; i = (i + 1) & mask) {
+        long slot = table[i];
+        if (slot == value) {
+          return false;
+        }
+        if (slot == 0) {
+          table[i] = value;
+          size++;
+          return true;
+        }
+      }
+    }
+
+    void clear() {
+      Arrays.fill(table, 0);
+      size = 0;
+    }
+  }
+}
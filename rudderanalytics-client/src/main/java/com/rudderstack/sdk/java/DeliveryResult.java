@@ -0,0 +1,78 @@
+package com.rudderstack.sdk.java;
+
+import com.rudderstack.sdk.java.messages.Message;
+
+/**
+ * The outcome of a message enqueued with {@link RudderAnalytics#submit}.
+ *
+ * <p>Like {@link Callback#success}, {@link Status#DELIVERED} only means that the message was
+ * accepted by the Rudder API, not that it reached every integration.
+ */
+@Beta
+public final class DeliveryResult {
+  /** What became of a message. */
+  public enum Status {
+    /** The message's batch was uploaded. */
+    DELIVERED,
+    /** The library gave up on uploading the message's batch. */
+    FAILED,
+    /** The message was dropped before being queued, by sampling, a plugin or deduplication. */
+    DROPPED,
+    /** The message was folded into an aggregate, which is delivered separately. */
+    AGGREGATED
+  }
+
+  public static DeliveryResult delivered(Message message) {
+    return new DeliveryResult(Status.DELIVERED, message, null);
+  }
+
+  public static DeliveryResult failed(Message message, Throwable failure) {
+    if (failure == null) {
+      throw new NullPointerException("Null failure");
+    }
+    return new DeliveryResult(Status.FAILED, message, failure);
+  }
+
+  /** {@code message} is {@code null} if it was dropped before being built. */
+  public static DeliveryResult dropped(Message message) {
+    return new DeliveryResult(Status.DROPPED, message, null);
+  }
+
+  public static DeliveryResult aggregated(Message message) {
+    return new DeliveryResult(Status.AGGREGATED, message, null);
+  }
+
+  private final Status status;
+  private final Message message;
+  private final Throwable failure;
+
+  private DeliveryResult(Status status, Message message, Throwable failure) {
+    this.status = status;
+    this.message = message;
+    this.failure = failure;
+  }
+
+  public Status status() {
+    return status;
+  }
+
+  /** Returns {@code true} if the message was uploaded. */
+  public boolean isDelivered() {
+    return status == Status.DELIVERED;
+  }
+
+  /** Returns the message, or {@code null} if it was dropped before being built. */
+  public Message message() {
+    return message;
+  }
+
+  /** Returns why delivery failed, or {@code null} unless the status is {@link Status#FAILED}. */
+  public Throwable failure() {
+    return failure;
+  }
+
+  @Override
+  public String toString() {
+    return "DeliveryResult{status=" + status + ", message=" + message + ", failure=" + failure + "}";
+  }
+}
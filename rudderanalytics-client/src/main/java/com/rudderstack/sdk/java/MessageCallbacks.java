@@ -0,0 +1,33 @@
+package com.rudderstack.sdk.java;
+
+import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.Message;
+
+import java.util.List;
+
+/** Dispatches a batch's outcome to per-message {@link Callback}s. */
+final class MessageCallbacks implements BatchCallback {
+  private final List<Callback> callbacks;
+
+  MessageCallbacks(List<Callback> callbacks) {
+    this.callbacks = callbacks;
+  }
+
+  @Override
+  public void success(Batch batch) {
+    for (Message message : batch.batch()) {
+      for (Callback callback : callbacks) {
+        callback.success(message);
+      }
+    }
+  }
+
+  @Override
+  public void failure(Batch batch, Throwable throwable) {
+    for (Message message : batch.batch()) {
+      for (Callback callback : callbacks) {
+        callback.failure(message, throwable);
+      }
+    }
+  }
+}
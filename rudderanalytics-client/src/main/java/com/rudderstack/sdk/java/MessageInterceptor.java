@@ -45,6 +45,14 @@ public interface MessageInterceptor {
       }
     }
 
+    /**
+     * Returns {@code true} if this interceptor handles messages of {@code type}. Messages of other
+     * types skip it entirely, without the typed method being called. Defaults to all types.
+     */
+    public boolean handles(Message.Type type) {
+      return true;
+    }
+
     /** Called for every {@link AliasMessage}. */
     abstract AliasMessage alias(AliasMessage message);
 
@@ -0,0 +1,223 @@
+package com.rudderstack.sdk.java;
+
+import com.rudderstack.sdk.java.messages.AliasMessage;
+import com.rudderstack.sdk.java.messages.GroupMessage;
+import com.rudderstack.sdk.java.messages.IdentifyMessage;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.MessageBuilder;
+import com.rudderstack.sdk.java.messages.PageMessage;
+import com.rudderstack.sdk.java.messages.ScreenMessage;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The registered {@link MessageTransformer}s and {@link MessageInterceptor}s, compiled into one
+ * pipeline per {@link Message.Type} when the client is built.
+ *
+ * <p>Typed plugins are split into per-type stages that call the typed method directly, and are left
+ * out of the pipelines for types they do not {@linkplain MessageTransformer.Typed#handles handle}.
+ * A type without any stages costs a single array lookup per message. If an interceptor returns a
+ * message of another type, the interceptors registered after it run from the new type's pipeline.
+ */
+final class MessagePipeline {
+  private static final int TYPE_COUNT = Message.Type.values().length;
+
+  private final MessageTransformer[][] transformers = new MessageTransformer[TYPE_COUNT][];
+  private final MessageInterceptor[][] interceptors = new MessageInterceptor[TYPE_COUNT][];
+  /** The registration index of each interceptor stage, by type. */
+  private final int[][] interceptorIndexes = new int[TYPE_COUNT][];
+
+  MessagePipeline(List<MessageTransformer> transformers, List<MessageInterceptor> interceptors) {
+    for (Message.Type type : Message.Type.values()) {
+      List<MessageTransformer> typeTransformers = new ArrayList<>();
+      for (MessageTransformer transformer : transformers) {
+        if (!(transformer instanceof MessageTransformer.Typed)) {
+          typeTransformers.add(transformer);
+        } else if (((MessageTransformer.Typed) transformer).handles(type)) {
+          typeTransformers.add(stage((MessageTransformer.Typed) transformer, type));
+        }
+      }
+      List<MessageInterceptor> typeInterceptors = new ArrayList<>();
+      List<Integer> indexes = new ArrayList<>();
+      for (int i = 0; i < interceptors.size(); i++) {
+        MessageInterceptor interceptor = interceptors.get(i);
+        if (!(interceptor instanceof MessageInterceptor.Typed)) {
+          typeInterceptors.add(interceptor);
+          indexes.add(i);
+        } else if (((MessageInterceptor.Typed) interceptor).handles(type)) {
+          typeInterceptors.add(stage((MessageInterceptor.Typed) interceptor, type));
+          indexes.add(i);
+        }
+      }
+      if (!typeTransformers.isEmpty()) {
+        this.transformers[type.ordinal()] =
+            typeTransformers.toArray(new MessageTransformer[typeTransformers.size()]);
+      }
+      if (!typeInterceptors.isEmpty()) {
+        this.interceptors[type.ordinal()] =
+            typeInterceptors.toArray(new MessageInterceptor[typeInterceptors.size()]);
+        int[] typeIndexes = new int[indexes.size()];
+        for (int i = 0; i < typeIndexes.length; i++) {
+          typeIndexes[i] = indexes.get(i);
+        }
+        this.interceptorIndexes[type.ordinal()] = typeIndexes;
+      }
+    }
+  }
+
+  /** Returns {@code true} if any transformer applies to messages of {@code type}. */
+  boolean hasTransformers(Message.Type type) {
+    return transformers[type.ordinal()] != null;
+  }
+
+  /**
+   * Runs the transformers for the builder's type, returning {@code false} as soon as one of them
+   * rejects the message.
+   */
+  boolean transform(MessageBuilder builder) {
+    MessageTransformer[] stages = transformers[builder.type().ordinal()];
+    if (stages == null) {
+      return true;
+    }
+    for (MessageTransformer stage : stages) {
+      if (!stage.transform(builder)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Runs the interceptors for the message's type, returning {@code null} as soon as one of them
+   * drops the message.
+   */
+  Message intercept(Message message) {
+    Message.Type type = message.type();
+    MessageInterceptor[] stages = interceptors[type.ordinal()];
+    for (int i = 0; stages != null && i < stages.length; i++) {
+      message = stages[i].intercept(message);
+      if (message == null) {
+        return null;
+      }
+      if (message.type() != type) {
+        // Typed stages cast to their type, so go on with the stages of the new one.
+        int registered = interceptorIndexes[type.ordinal()][i];
+        type = message.type();
+        stages = interceptors[type.ordinal()];
+        i = stages == null ? 0 : after(interceptorIndexes[type.ordinal()], registered) - 1;
+      }
+    }
+    return message;
+  }
+
+  /** Returns the position of the first stage in {@code indexes} registered after {@code index}. */
+  private static int after(int[] indexes, int index) {
+    int i = 0;
+    while (i < indexes.length && indexes[i] <= index) {
+      i++;
+    }
+    return i;
+  }
+
+  private static MessageTransformer stage(
+      final MessageTransformer.Typed typed, Message.Type type) {
+    switch (type) {
+      case alias:
+        return new MessageTransformer() {
+          @Override
+          public boolean transform(MessageBuilder builder) {
+            return typed.alias((AliasMessage.Builder) builder);
+          }
+        };
+      case group:
+        return new MessageTransformer() {
+          @Override
+          public boolean transform(MessageBuilder builder) {
+            return typed.group((GroupMessage.Builder) builder);
+          }
+        };
+      case identify:
+        return new MessageTransformer() {
+          @Override
+          public boolean transform(MessageBuilder builder) {
+            return typed.identify((IdentifyMessage.Builder) builder);
+          }
+        };
+      case screen:
+        return new MessageTransformer() {
+          @Override
+          public boolean transform(MessageBuilder builder) {
+            return typed.screen((ScreenMessage.Builder) builder);
+          }
+        };
+      case page:
+        return new MessageTransformer() {
+          @Override
+          public boolean transform(MessageBuilder builder) {
+            return typed.page((PageMessage.Builder) builder);
+          }
+        };
+      case track:
+        return new MessageTransformer() {
+          @Override
+          public boolean transform(MessageBuilder builder) {
+            return typed.track((TrackMessage.Builder) builder);
+          }
+        };
+      default:
+        throw new IllegalArgumentException("Unknown payload type: " + type);
+    }
+  }
+
+  private static MessageInterceptor stage(
+      final MessageInterceptor.Typed typed, Message.Type type) {
+    switch (type) {
+      case alias:
+        return new MessageInterceptor() {
+          @Override
+          public Message intercept(Message message) {
+            return typed.alias((AliasMessage) message);
+          }
+        };
+      case group:
+        return new MessageInterceptor() {
+          @Override
+          public Message intercept(Message message) {
+            return typed.group((GroupMessage) message);
+          }
+        };
+      case identify:
+        return new MessageInterceptor() {
+          @Override
+          public Message intercept(Message message) {
+            return typed.identify((IdentifyMessage) message);
+          }
+        };
+      case screen:
+        return new MessageInterceptor() {
+          @Override
+          public Message intercept(Message message) {
+            return typed.screen((ScreenMessage) message);
+          }
+        };
+      case page:
+        return new MessageInterceptor() {
+          @Override
+          public Message intercept(Message message) {
+            return typed.page((PageMessage) message);
+          }
+        };
+      case track:
+        return new MessageInterceptor() {
+          @Override
+          public Message intercept(Message message) {
+            return typed.track((TrackMessage) message);
+          }
+        };
+      default:
+        throw new IllegalArgumentException("Unknown payload type: " + type);
+    }
+  }
+}
@@ -47,6 +47,14 @@ public interface MessageTransformer {
       }
     }
 
+    /**
+     * Returns {@code true} if this transformer handles messages of {@code type}. Messages of other
+     * types skip it entirely, without the typed method being called. Defaults to all types.
+     */
+    public boolean handles(Message.Type type) {
+      return true;
+    }
+
     /** Called for every {@link AliasMessage}. */
     abstract boolean alias(AliasMessage.Builder builder);
 
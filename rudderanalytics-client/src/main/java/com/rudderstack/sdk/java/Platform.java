@@ -4,9 +4,13 @@ import static java.lang.Thread.MIN_PRIORITY;
 
 import com.jakewharton.retrofit.Ok3Client;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.OkHttpClient;
@@ -16,6 +20,7 @@ class Platform {
     static final String THREAD_NAME = "Analytics";
 
     private static final Platform PLATFORM = findPlatform();
+    private static final ThreadFactory VIRTUAL_THREAD_FACTORY = findVirtualThreadFactory();
 
     static Platform get() {
         return PLATFORM;
@@ -25,6 +30,19 @@ class Platform {
         return new Platform();
     }
 
+    /** Returns a factory of virtual threads, or {@code null} before Java 21. */
+    private static ThreadFactory findVirtualThreadFactory() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class).invoke(builder, THREAD_NAME);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            // Also thrown on Java 19 and 20 without --enable-preview.
+            return null;
+        }
+    }
+
     Client defaultClient() {
         OkHttpClient client =
                 new OkHttpClient.Builder()
@@ -41,6 +59,34 @@ class Platform {
         return Executors.newSingleThreadExecutor(defaultThreadFactory());
     }
 
+    /**
+     * Runs {@link BatchCallback}s on a single thread. Its queue is bounded so that callbacks that
+     * cannot keep up eventually hold up uploads, rather than letting batches pile up in memory.
+     */
+    ExecutorService defaultCallbackExecutor(ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(
+                1,
+                1,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(1024),
+                threadFactory,
+                new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Callback executor is shut down.");
+                        }
+                        try {
+                            executor.getQueue().put(r);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException(e);
+                        }
+                    }
+                });
+    }
+
     ThreadFactory defaultThreadFactory() {
         return new ThreadFactory() {
             @Override
@@ -58,6 +104,25 @@ class Platform {
         };
     }
 
+    boolean hasVirtualThreads() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    ThreadFactory virtualThreadFactory() {
+        return VIRTUAL_THREAD_FACTORY;
+    }
+
+    /** Returns an executor starting a virtual thread per upload, so uploads are not limited. */
+    ExecutorService virtualThreadNetworkExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, VIRTUAL_THREAD_FACTORY);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     public long defaultFlushIntervalInMillis() {
         return 10 * 1000; // 10s
     }
@@ -1,27 +1,38 @@
 package com.rudderstack.sdk.java;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.rudderstack.sdk.java.gson.AutoValueAdapterFactory;
-import com.rudderstack.sdk.java.gson.ISO8601DateAdapter;
+import com.rudderstack.sdk.java.gson.GsonCodec;
+import com.rudderstack.sdk.java.http.CodecConverter;
+import com.rudderstack.sdk.java.http.JsonCodec;
 import com.rudderstack.sdk.java.http.RudderService;
 import com.rudderstack.sdk.java.internal.AnalyticsClient;
+import com.rudderstack.sdk.java.internal.BufferPool;
+import com.rudderstack.sdk.java.internal.ClientMetrics;
+import com.rudderstack.sdk.java.messages.EncodedMap;
 import com.rudderstack.sdk.java.messages.Message;
 import com.rudderstack.sdk.java.messages.MessageBuilder;
+import com.rudderstack.sdk.java.messages.StringCache;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+import com.segment.backo.Backo;
 
 import retrofit.Endpoint;
 import retrofit.Endpoints;
 import retrofit.RestAdapter;
 import retrofit.client.Client;
-import retrofit.converter.GsonConverter;
 
 /**
  * The entry point into the Rudder for Java library.
@@ -40,18 +51,26 @@ import retrofit.converter.GsonConverter;
  * to construct your own instances.
  */
 public class RudderAnalytics {
+    /** How many messages {@link #enqueueAll} adds to the queue at once, at most. */
+    static final int BULK_CHUNK_SIZE = 1000;
+
     private final AnalyticsClient client;
-    private final List<MessageTransformer> messageTransformers;
-    private final List<MessageInterceptor> messageInterceptors;
+    private final MessagePipeline pipeline;
+    private final Sampler sampler;
     private final Log log;
-    private static FlushBlocking flushBlock = null;
+    private final StringCache stringCache;
+    private final int flushQueueSize;
+    private final int maxUploadsInFlight;
 
-    RudderAnalytics(AnalyticsClient client, List<MessageTransformer> messageTransformers,
-                    List<MessageInterceptor> messageInterceptors, Log log) {
+    RudderAnalytics(AnalyticsClient client, MessagePipeline pipeline, Sampler sampler, Log log,
+                    StringCache stringCache, int flushQueueSize, int maxUploadsInFlight) {
         this.client = client;
-        this.messageTransformers = messageTransformers;
-        this.messageInterceptors = messageInterceptors;
+        this.pipeline = pipeline;
+        this.sampler = sampler;
         this.log = log;
+        this.stringCache = stringCache;
+        this.flushQueueSize = flushQueueSize;
+        this.maxUploadsInFlight = maxUploadsInFlight;
     }
 
     /**
@@ -67,20 +86,176 @@ public class RudderAnalytics {
      * Enqueue the given message to be uploaded to Rudder's servers.
      */
     public void enqueue(MessageBuilder builder) {
-        for (MessageTransformer messageTransformer : messageTransformers) {
-            boolean shouldContinue = messageTransformer.transform(builder);
-            if (!shouldContinue) {
-                log.print(Log.Level.VERBOSE, "Skipping message %s.", builder);
-                return;
+        enqueue(builder, null, null);
+    }
+
+    /**
+     * Enqueue the given message to be uploaded with {@code writeKey} instead of this instance's
+     * write key. Messages for each write key are batched separately, and write keys share uploads
+     * according to their {@linkplain Builder#writeKeyWeight weights}.
+     */
+    @Beta
+    public void enqueue(String writeKey, MessageBuilder builder) {
+        if (writeKey == null) {
+            throw new NullPointerException("Null writeKey");
+        }
+        enqueue(builder, writeKey, null);
+    }
+
+    /**
+     * Enqueue the given message to be uploaded to Rudder's servers, returning a future that
+     * completes once the message is delivered, given up on, or dropped.
+     *
+     * <p>The future is completed on the callback thread rather than the upload threads, so
+     * dependent stages should be quick or run asynchronously.
+     */
+    @Beta
+    public CompletableFuture<DeliveryResult> submit(MessageBuilder builder) {
+        CompletableFuture<DeliveryResult> result = new CompletableFuture<>();
+        enqueue(builder, null, result);
+        return result;
+    }
+
+    /**
+     * Enqueue the given message to be uploaded with {@code writeKey}, as with {@link
+     * #enqueue(String, MessageBuilder)}, returning a future as with {@link #submit(MessageBuilder)}.
+     */
+    @Beta
+    public CompletableFuture<DeliveryResult> submit(String writeKey, MessageBuilder builder) {
+        if (writeKey == null) {
+            throw new NullPointerException("Null writeKey");
+        }
+        CompletableFuture<DeliveryResult> result = new CompletableFuture<>();
+        enqueue(builder, writeKey, result);
+        return result;
+    }
+
+    /**
+     * Enqueue the given messages to be uploaded to Rudder's servers. Each message goes through
+     * sampling and the plugins as with {@link #enqueue(MessageBuilder)}, but the messages are added
+     * to the queue together, which saves most of the per-message cost of queueing. They are still
+     * uploaded in batches of at most the {@linkplain Builder#flushQueueSize flush queue size}.
+     */
+    @Beta
+    public void enqueueAll(Collection<? extends MessageBuilder> builders) {
+        enqueueAll(builders.iterator(), builders.size());
+    }
+
+    /**
+     * Enqueue the messages of {@code builders}, as with {@link #enqueueAll(Collection)}. They are
+     * added to the queue in chunks, so that a long iteration does not hold them all in memory.
+     */
+    @Beta
+    public void enqueueAll(Iterator<? extends MessageBuilder> builders) {
+        enqueueAll(builders, BULK_CHUNK_SIZE);
+    }
+
+    private void enqueueAll(Iterator<? extends MessageBuilder> builders, int sizeHint) {
+        List<Message> messages = new ArrayList<>(Math.min(sizeHint, BULK_CHUNK_SIZE));
+        while (builders.hasNext()) {
+            Message message = prepare(builders.next(), null);
+            if (message != null) {
+                messages.add(message);
+            }
+            if (messages.size() == BULK_CHUNK_SIZE) {
+                client.enqueueAll(messages);
+                messages = new ArrayList<>(BULK_CHUNK_SIZE);
             }
         }
-        Message message = builder.build();
-        for (MessageInterceptor messageInterceptor : messageInterceptors) {
-            message = messageInterceptor.intercept(message);
-            if (message == null) {
-                log.print(Log.Level.VERBOSE, "Skipping message %s.", builder);
-                return;
+        if (!messages.isEmpty()) {
+            client.enqueueAll(messages);
+        }
+    }
+
+    private void enqueue(
+            MessageBuilder builder, String writeKey, CompletableFuture<DeliveryResult> result) {
+        Message message = prepare(builder, result);
+        if (message != null) {
+            client.enqueue(message, writeKey, result);
+        }
+    }
+
+    /**
+     * Samples, transforms, builds and intercepts the message, returning {@code null}, and
+     * completing {@code result} if it is not {@code null}, if it is dropped on the way.
+     */
+    private Message prepare(
+            MessageBuilder<?, ?> builder, CompletableFuture<DeliveryResult> result) {
+        // Sample first, on the IDs the caller set, so dropped messages cost as little as possible.
+        Sampler.Rate rate = sampler == null ? null : sampler.rate(builder);
+        if (rate != null && !rate.keeps(builder.userId(), builder.anonymousId())) {
+            log.print(Log.Level.VERBOSE, "Sampled out message %s.", builder);
+            client.sampledOut();
+            dropped(result, null);
+            return null;
+        }
+        if (!pipeline.transform(builder)) {
+            log.print(Log.Level.VERBOSE, "Skipping message %s.", builder);
+            client.filtered();
+            dropped(result, null);
+            return null;
+        }
+        if (rate != null) {
+            builder.context(rate.addTo(builder.context()));
+        }
+        if (stringCache != null) {
+            stringCache.intern(builder);
+        }
+        Message built = builder.build();
+        Message message = pipeline.intercept(built);
+        if (message == null) {
+            log.print(Log.Level.VERBOSE, "Skipping message %s.", builder);
+            client.filtered();
+            dropped(result, built);
+            return null;
+        }
+        return message;
+    }
+
+    private static void dropped(CompletableFuture<DeliveryResult> result, Message message) {
+        if (result != null) {
+            result.complete(DeliveryResult.dropped(message));
+        }
+    }
+
+    /**
+     * Enqueue a track event for {@code userId}, for callers on a hot path.
+     *
+     * <p>Unless {@link MessageTransformer}s handle track messages, this builds the message directly
+     * instead of through a {@link TrackMessage.Builder}, allocating little more than the message
+     * itself. Either way, {@code properties} is adopted rather than copied, as with {@link
+     * MessageBuilder#adoptMaps()}, and must not be modified afterwards.
+     *
+     * @param properties the event properties, or {@code null}
+     */
+    @Beta
+    public void track(String userId, String event, Map<String, ?> properties) {
+        Sampler.Rate rate = sampler == null ? null : sampler.rate(Message.Type.track, event);
+        if (rate != null && !rate.keeps(userId, null)) {
+            log.print(Log.Level.VERBOSE, "Sampled out track event %s.", event);
+            client.sampledOut();
+            return;
+        }
+        if (pipeline.hasTransformers(Message.Type.track)) {
+            // Transformers operate on builders, so take the regular path.
+            TrackMessage.Builder builder = TrackMessage.builder(event).adoptMaps().userId(userId);
+            if (properties != null) {
+                builder.properties(properties);
             }
+            enqueue(builder);
+            return;
+        }
+        if (stringCache != null) {
+            event = stringCache.intern(event);
+            properties = stringCache.internKeys(properties);
+        }
+        Map<String, ?> context = rate == null ? null : rate.addTo(null);
+        Message message =
+                pipeline.intercept(TrackMessage.create(userId, event, properties, context));
+        if (message == null) {
+            log.print(Log.Level.VERBOSE, "Skipping track event %s.", event);
+            client.filtered();
+            return;
         }
         client.enqueue(message);
     }
@@ -92,6 +267,41 @@ public class RudderAnalytics {
         client.flush();
     }
 
+    /**
+     * Returns the metrics of this instance's delivery pipeline.
+     */
+    @Beta
+    public ClientMetrics metrics() {
+        return client.metrics();
+    }
+
+    /**
+     * Returns the {@link Log} this instance reports to, for integrations that have errors to
+     * report on its behalf.
+     */
+    @Beta
+    public Log log() {
+        return log;
+    }
+
+    /**
+     * Returns how many messages this instance uploads per batch at most, as set with {@link
+     * Builder#flushQueueSize} or by default.
+     */
+    @Beta
+    public int flushQueueSize() {
+        return flushQueueSize;
+    }
+
+    /**
+     * Returns how many batches this instance uploads at once at most, as set with {@link
+     * Builder#maxUploadsInFlight} or by default, or 0 if there is no limit.
+     */
+    @Beta
+    public int maxUploadsInFlight() {
+        return maxUploadsInFlight;
+    }
+
     /**
      * Stops this instance from processing further requests.
      */
@@ -100,11 +310,27 @@ public class RudderAnalytics {
     }
 
     /**
-     * Block until the flush completes
+     * Flush events in the message queue, returning a future that completes once every message
+     * enqueued before this call has been uploaded or given up on. The future fails if this
+     * instance is shut down first.
      */
-    synchronized public void blockFlush() {
-        flush();
-        flushBlock.block();
+    @Beta
+    public CompletableFuture<Void> flushAsync() {
+        return client.flushAndWait();
+    }
+
+    /**
+     * Flush events in the message queue, and block until every message enqueued before this call
+     * has been uploaded or given up on.
+     */
+    public void blockFlush() {
+        try {
+            flushAsync().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.print(Log.Level.ERROR, e.getCause(), "Flush did not complete.");
+        }
     }
 
     /**
@@ -126,6 +352,20 @@ public class RudderAnalytics {
         private int flushQueueSize;
         private long flushIntervalInMillis;
         private List<Callback> callbacks;
+        private List<BatchCallback> batchCallbacks;
+        private Map<String, ?> context;
+        private JsonCodec codec;
+        private StringCache stringCache;
+        private BufferPool bufferPool;
+        private Sampler sampler;
+        private Deduplicator deduplicator;
+        private Aggregator aggregator;
+        private Backo backo;
+        private boolean jmx;
+        private boolean virtualThreads;
+        private RudderRuntime runtime;
+        private Map<String, Integer> writeKeyWeights;
+        private int maxUploadsInFlight;
 
         Builder(String writeKey, String dataPlaneUrl) {
             if (writeKey == null || writeKey.trim().length() == 0 || dataPlaneUrl == null
@@ -136,6 +376,141 @@ public class RudderAnalytics {
             this.endpoint = Endpoints.newFixedEndpoint(dataPlaneUrl);
         }
 
+        /**
+         * Set the {@link JsonCodec} used to encode batches and decode responses. By default, a
+         * Gson backed codec is used.
+         */
+        @Beta
+        public Builder codec(JsonCodec codec) {
+            if (codec == null) {
+                throw new NullPointerException("Null codec");
+            }
+            this.codec = codec;
+            return this;
+        }
+
+        /**
+         * Set a {@link StringCache} that event names and property keys are interned into before
+         * messages are queued. Share it with a codec that supports it to also reuse their encoded
+         * form.
+         */
+        @Beta
+        public Builder stringCache(StringCache stringCache) {
+            if (stringCache == null) {
+                throw new NullPointerException("Null stringCache");
+            }
+            this.stringCache = stringCache;
+            return this;
+        }
+
+        /**
+         * Set a {@link Sampler} that drops a fraction of messages before they are built.
+         */
+        @Beta
+        public Builder sampler(Sampler sampler) {
+            if (sampler == null) {
+                throw new NullPointerException("Null sampler");
+            }
+            this.sampler = sampler;
+            return this;
+        }
+
+        /**
+         * Drop messages whose message ID was already enqueued among the last {@code maxMessages}
+         * messages, or within the last {@code window} if it is not zero. IDs are remembered as
+         * hashes, in fixed memory of at most 64 bytes per message.
+         */
+        @Beta
+        public Builder deduplicate(int maxMessages, long window, TimeUnit unit) {
+            if (unit == null) {
+                throw new NullPointerException("Null unit");
+            }
+            this.deduplicator = Deduplicator.create(maxMessages, window, unit);
+            return this;
+        }
+
+        /**
+         * Set an {@link Aggregator} that folds high-frequency track events into one event per
+         * flush interval.
+         */
+        @Beta
+        public Builder aggregator(Aggregator aggregator) {
+            if (aggregator == null) {
+                throw new NullPointerException("Null aggregator");
+            }
+            this.aggregator = aggregator;
+            return this;
+        }
+
+        /**
+         * Set the backoff between attempts to upload a batch, growing exponentially from {@code
+         * base} up to {@code cap}, with jitter. By default, it grows from 15 seconds to an hour.
+         */
+        @Beta
+        public Builder retryBackoff(long base, long cap, TimeUnit unit) {
+            if (unit == null) {
+                throw new NullPointerException("Null unit");
+            }
+            if (base < 1) {
+                throw new IllegalArgumentException("base must be positive.");
+            }
+            if (cap < base) {
+                throw new IllegalArgumentException("cap must not be less than base.");
+            }
+            this.backo = Backo.builder().base(unit, base).cap(unit, cap).jitter(1).build();
+            return this;
+        }
+
+        /**
+         * Attach the client to a {@link RudderRuntime} shared with other clients, so that it starts
+         * no threads of its own. Its HTTP client, codec, buffer pool and network executor default
+         * to the runtime's, and {@link #threadFactory} and {@link #virtualThreads} are ignored.
+         */
+        @Beta
+        public Builder runtime(RudderRuntime runtime) {
+            if (runtime == null) {
+                throw new NullPointerException("Null runtime");
+            }
+            this.runtime = runtime;
+            return this;
+        }
+
+        /**
+         * Run the looper and uploads on virtual threads, if the runtime has them (Java 21 and
+         * later), starting a thread per upload rather than uploading one batch at a time. It is
+         * ignored on earlier runtimes, and a {@link #networkExecutor} or {@link #threadFactory}
+         * set explicitly takes precedence. Virtual threads do not keep the JVM alive, so call
+         * {@link #blockFlush()} or {@link #shutdown()} before exiting.
+         */
+        @Beta
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Register the client's {@link ClientMetrics} with the platform MBean server, under
+         * {@code com.rudderstack.sdk.java:type=AnalyticsClient}.
+         */
+        @Beta
+        public Builder jmx(boolean jmx) {
+            this.jmx = jmx;
+            return this;
+        }
+
+        /**
+         * Set the {@link BufferPool} batches are encoded into. By default, each client pools up to
+         * 8 MB of heap buffers.
+         */
+        @Beta
+        public Builder bufferPool(BufferPool bufferPool) {
+            if (bufferPool == null) {
+                throw new NullPointerException("Null bufferPool");
+            }
+            this.bufferPool = bufferPool;
+            return this;
+        }
+
         /**
          * Set a custom networking client.
          */
@@ -229,7 +604,8 @@ public class RudderAnalytics {
         }
 
         /**
-         * Set the interval at which the queue should be flushed.
+         * Set how long a message may wait in a partial batch before the batch is sent. An idle
+         * client does no work on this interval.
          */
         @Beta
         public Builder flushInterval(long flushInterval, TimeUnit unit) {
@@ -252,6 +628,43 @@ public class RudderAnalytics {
             return this;
         }
 
+        /**
+         * Give {@code writeKey} a {@code weight} times larger share of uploads than write keys
+         * with the default weight of 1, when messages for several keys are waiting to be sent. It
+         * applies to this instance's own write key as well as those passed to {@link
+         * RudderAnalytics#enqueue(String, MessageBuilder)}.
+         */
+        @Beta
+        public Builder writeKeyWeight(String writeKey, int weight) {
+            if (writeKey == null) {
+                throw new NullPointerException("Null writeKey");
+            }
+            if (weight < 1) {
+                throw new IllegalArgumentException("weight must be positive.");
+            }
+            if (writeKeyWeights == null) {
+                writeKeyWeights = new HashMap<>();
+            }
+            writeKeyWeights.put(writeKey, weight);
+            return this;
+        }
+
+        /**
+         * Set how many batches may be uploading at once. Batches beyond that wait their write key's
+         * turn, so this should match the parallelism of the {@link #networkExecutor}. By default, it
+         * does for the default executor, a {@link RudderRuntime}'s, and {@link ThreadPoolExecutor}s
+         * with a bounded number of threads, and is unlimited otherwise. A batch backing off before
+         * a retry is not uploading, and waits its turn again once the backoff is over.
+         */
+        @Beta
+        public Builder maxUploadsInFlight(int maxUploadsInFlight) {
+            if (maxUploadsInFlight < 1) {
+                throw new IllegalArgumentException("maxUploadsInFlight must be positive.");
+            }
+            this.maxUploadsInFlight = maxUploadsInFlight;
+            return this;
+        }
+
         /**
          * Set the {@link ThreadFactory} used to create threads.
          */
@@ -281,6 +694,36 @@ public class RudderAnalytics {
             return this;
         }
 
+        /**
+         * Add a {@link BatchCallback} to be notified when a batch is processed.
+         */
+        @Beta
+        public Builder batchCallback(BatchCallback callback) {
+            if (callback == null) {
+                throw new NullPointerException("Null callback");
+            }
+            if (batchCallbacks == null) {
+                batchCallbacks = new ArrayList<>();
+            }
+            if (batchCallbacks.contains(callback)) {
+                throw new IllegalStateException("Callback is already registered.");
+            }
+            batchCallbacks.add(callback);
+            return this;
+        }
+
+        /**
+         * Set static context that is sent with every batch, alongside the library information.
+         * It is encoded once when the client is built instead of on every upload.
+         */
+        public Builder context(Map<String, ?> context) {
+            if (context == null) {
+                throw new NullPointerException("Null context");
+            }
+            this.context = EncodedMap.of(context);
+            return this;
+        }
+
         /**
          * Use a {@link Plugin} to configure the builder.
          */
@@ -294,25 +737,44 @@ public class RudderAnalytics {
         }
 
         /**
-         * Use a {@link FlushBlock} to implement synchronization
+         * Formerly required for {@link RudderAnalytics#blockFlush()}, which now works on every
+         * instance.
+         *
+         * @deprecated This has no effect.
          */
+        @Deprecated
         public Builder synchronize(boolean isSynchronize) {
-        	if (isSynchronize) {
-        		flushBlock = FlushBlocking.create();
-        		plugin(flushBlock.plugin());
-        	}
-        	return this;
+            return this;
         }
 
         /**
          * Create a {@link RudderAnalytics} client.
          */
         public RudderAnalytics build() {
-            Gson gson = new GsonBuilder() //
-                    .registerTypeAdapterFactory(new AutoValueAdapterFactory()) //
-                    .registerTypeAdapter(Date.class, new ISO8601DateAdapter()) //
-                    .create();
-
+            if (runtime != null) {
+                if (client == null) {
+                    client = runtime.client;
+                }
+                if (codec == null) {
+                    codec = runtime.codec;
+                }
+                if (bufferPool == null) {
+                    bufferPool = runtime.bufferPool;
+                }
+                if (networkExecutor == null) {
+                    networkExecutor = runtime.uploads.lane();
+                    if (maxUploadsInFlight == 0) {
+                        maxUploadsInFlight = runtime.uploadThreads;
+                    }
+                }
+                virtualThreads = false;
+            }
+            if (codec == null) {
+                codec = GsonCodec.create();
+            }
+            if (bufferPool == null) {
+                bufferPool = BufferPool.create();
+            }
             if (endpoint == null) {
                 endpoint = DEFAULT_ENDPOINT;
             }
@@ -331,32 +793,53 @@ public class RudderAnalytics {
             }
             if (messageTransformers == null) {
                 messageTransformers = Collections.emptyList();
-            } else {
-                messageTransformers = Collections.unmodifiableList(messageTransformers);
             }
             if (messageInterceptors == null) {
                 messageInterceptors = Collections.emptyList();
-            } else {
-                messageInterceptors = Collections.unmodifiableList(messageInterceptors);
+            }
+            if (virtualThreads && !Platform.get().hasVirtualThreads()) {
+                log.print(Log.Level.DEBUG, "Virtual threads are not available, using platform threads.");
+                virtualThreads = false;
             }
             if (networkExecutor == null) {
-                networkExecutor = Platform.get().defaultNetworkExecutor();
+                if (virtualThreads) {
+                    networkExecutor = Platform.get().virtualThreadNetworkExecutor();
+                } else {
+                    networkExecutor = Platform.get().defaultNetworkExecutor();
+                    if (maxUploadsInFlight == 0) {
+                        maxUploadsInFlight = 1; // It has a single thread.
+                    }
+                }
+            }
+            if (maxUploadsInFlight == 0 && networkExecutor instanceof ThreadPoolExecutor) {
+                int threads = ((ThreadPoolExecutor) networkExecutor).getMaximumPoolSize();
+                maxUploadsInFlight = threads == Integer.MAX_VALUE ? 0 : threads;
             }
             if (threadFactory == null) {
-                threadFactory = Platform.get().defaultThreadFactory();
+                threadFactory = virtualThreads
+                        ? Platform.get().virtualThreadFactory()
+                        : Platform.get().defaultThreadFactory();
             }
-            if (callbacks == null) {
-                callbacks = Collections.emptyList();
-            } else {
-                callbacks = Collections.unmodifiableList(callbacks);
+            List<BatchCallback> allCallbacks = new ArrayList<>();
+            if (batchCallbacks != null) {
+                allCallbacks.addAll(batchCallbacks);
             }
+            if (callbacks != null) {
+                allCallbacks.add(new MessageCallbacks(new ArrayList<>(callbacks)));
+            }
+            // Its thread is only started once there is a callback or future to complete.
+            ExecutorService callbackExecutor = runtime != null
+                    ? runtime.callbacks.lane()
+                    : Platform.get().defaultCallbackExecutor(threadFactory);
 
             RestAdapter restAdapter = new RestAdapter.Builder()
-                    .setConverter(new GsonConverter(gson))
+                    .setConverter(new CodecConverter(codec))
                     .setEndpoint(endpoint)
                     .setClient(client)
-                    .setRequestInterceptor(new AnalyticsRequestInterceptor(writeKey, userAgent))
-                    .setLogLevel(RestAdapter.LogLevel.FULL).setLog(new RestAdapter.Log() {
+                    .setRequestInterceptor(new AnalyticsRequestInterceptor(userAgent))
+                    // Full logging copies every request body, so only do it if someone is listening.
+                    .setLogLevel(log == Log.NONE ? RestAdapter.LogLevel.NONE : RestAdapter.LogLevel.FULL)
+                    .setLog(new RestAdapter.Log() {
                         @Override
                         public void log(String message) {
                             log.print(Log.Level.VERBOSE, "%s", message);
@@ -367,8 +850,20 @@ public class RudderAnalytics {
             RudderService rudderService = restAdapter.create(RudderService.class);
 
             AnalyticsClient analyticsClient = AnalyticsClient.create(rudderService, flushQueueSize, flushIntervalInMillis,
-                    log, threadFactory, networkExecutor, callbacks);
-            return new RudderAnalytics(analyticsClient, messageTransformers, messageInterceptors, log);
+                    log, threadFactory, networkExecutor, Collections.unmodifiableList(allCallbacks),
+                    callbackExecutor, context, codec, bufferPool, deduplicator, aggregator, backo,
+                    runtime == null ? null : runtime.scheduler, writeKey,
+                    writeKeyWeights == null ? null : new HashMap<>(writeKeyWeights), maxUploadsInFlight);
+            if (jmx) {
+                try {
+                    analyticsClient.registerMBean();
+                } catch (JMException e) {
+                    log.print(Log.Level.ERROR, e, "Could not register metrics with JMX.");
+                }
+            }
+            MessagePipeline pipeline = new MessagePipeline(messageTransformers, messageInterceptors);
+            return new RudderAnalytics(analyticsClient, pipeline, sampler, log, stringCache,
+                    flushQueueSize, maxUploadsInFlight);
         }
     }
 }
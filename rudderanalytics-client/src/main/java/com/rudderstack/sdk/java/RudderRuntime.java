@@ -0,0 +1,146 @@
+package com.rudderstack.sdk.java;
+
+import com.rudderstack.sdk.java.gson.GsonCodec;
+import com.rudderstack.sdk.java.http.JsonCodec;
+import com.rudderstack.sdk.java.internal.BufferPool;
+import com.rudderstack.sdk.java.internal.FairExecutor;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+import retrofit.client.Client;
+
+/**
+ * Threads, connections and buffers shared by many {@link RudderAnalytics} clients in one JVM.
+ * Clients attached to a runtime start no threads of their own: their loopers take turns on one
+ * scheduler thread, a batch at a time, and their uploads share a fixed set of upload threads that
+ * serve the clients in turn. They also share one HTTP client and its connection pool, the JSON
+ * codec and the buffer pool, unless a client is built with its own.
+ *
+ * <pre>{@code
+ * RudderRuntime runtime = RudderRuntime.builder().uploadThreads(8).build();
+ * RudderAnalytics tenant = RudderAnalytics.builder(writeKey, dataPlaneUrl)
+ *     .runtime(runtime)
+ *     .build();
+ * ...
+ * tenant.shutdown();
+ * runtime.shutdown();
+ * }</pre>
+ */
+@Beta
+public final class RudderRuntime {
+  /** Start building a {@link RudderRuntime}. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  final Client client;
+  final JsonCodec codec;
+  final BufferPool bufferPool;
+  final ScheduledThreadPoolExecutor scheduler;
+  final FairExecutor uploads;
+  final int uploadThreads;
+  final FairExecutor callbacks;
+
+  RudderRuntime(
+      Client client,
+      JsonCodec codec,
+      BufferPool bufferPool,
+      int uploadThreads,
+      ThreadFactory threadFactory) {
+    this.client = client;
+    this.codec = codec;
+    this.bufferPool = bufferPool;
+    this.scheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+    scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    this.uploads = FairExecutor.create(uploadThreads, threadFactory);
+    this.uploadThreads = uploadThreads;
+    this.callbacks = FairExecutor.create(1, threadFactory);
+  }
+
+  /**
+   * Stops the runtime's threads once the work already handed to them is done. Shut down the
+   * clients attached to it first.
+   */
+  public void shutdown() {
+    scheduler.shutdown();
+    uploads.shutdown();
+    callbacks.shutdown();
+  }
+
+  /** Fluent API for creating {@link RudderRuntime} instances. */
+  public static final class Builder {
+    private Client client;
+    private JsonCodec codec;
+    private BufferPool bufferPool;
+    private int uploadThreads;
+    private ThreadFactory threadFactory;
+
+    Builder() {}
+
+    /** Set the HTTP client shared by all clients. By default, an OkHttp client is used. */
+    public Builder client(Client client) {
+      if (client == null) {
+        throw new NullPointerException("Null client");
+      }
+      this.client = client;
+      return this;
+    }
+
+    /** Set the {@link JsonCodec} shared by all clients. By default, a Gson codec is used. */
+    public Builder codec(JsonCodec codec) {
+      if (codec == null) {
+        throw new NullPointerException("Null codec");
+      }
+      this.codec = codec;
+      return this;
+    }
+
+    /** Set the {@link BufferPool} shared by all clients. By default, it holds up to 8 MB. */
+    public Builder bufferPool(BufferPool bufferPool) {
+      if (bufferPool == null) {
+        throw new NullPointerException("Null bufferPool");
+      }
+      this.bufferPool = bufferPool;
+      return this;
+    }
+
+    /** Set how many batches are uploaded at once across all clients. Defaults to 4. */
+    public Builder uploadThreads(int uploadThreads) {
+      if (uploadThreads < 1) {
+        throw new IllegalArgumentException("uploadThreads must be positive.");
+      }
+      this.uploadThreads = uploadThreads;
+      return this;
+    }
+
+    /** Set the {@link ThreadFactory} the runtime's threads are created with. */
+    public Builder threadFactory(ThreadFactory threadFactory) {
+      if (threadFactory == null) {
+        throw new NullPointerException("Null threadFactory");
+      }
+      this.threadFactory = threadFactory;
+      return this;
+    }
+
+    /** Create a {@link RudderRuntime}, starting its threads. */
+    public RudderRuntime build() {
+      if (client == null) {
+        client = Platform.get().defaultClient();
+      }
+      if (codec == null) {
+        codec = GsonCodec.create();
+      }
+      if (bufferPool == null) {
+        bufferPool = BufferPool.create();
+      }
+      if (uploadThreads == 0) {
+        uploadThreads = 4;
+      }
+      if (threadFactory == null) {
+        threadFactory = Platform.get().defaultThreadFactory();
+      }
+      return new RudderRuntime(client, codec, bufferPool, uploadThreads, threadFactory);
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package com.rudderstack.sdk.java;
+
+import com.rudderstack.sdk.java.messages.EncodedMap;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.MessageBuilder;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps a fraction of messages, by type and by track event name, and drops the rest before they
+ * are built or queued.
+ *
+ * <p>Decisions are made per user: a hash of the message's {@code userId}, or its {@code
+ * anonymousId} if it has none, decides whether all of that user's sampled messages are kept, so
+ * the kept users' histories stay complete. Messages without either ID are always kept. Each kept
+ * message records its rate as {@code sampleRate} in its context.
+ *
+ * <pre>{@code
+ * Sampler sampler = Sampler.builder()
+ *     .eventRate("Heartbeat", 0.01)
+ *     .rate(Message.Type.page, 0.1)
+ *     .build();
+ * RudderAnalytics analytics = RudderAnalytics.builder(writeKey, dataPlaneUrl)
+ *     .sampler(sampler)
+ *     .build();
+ * }</pre>
+ *
+ * <p>Callers that assemble expensive messages can also ask {@link #sample} before building them.
+ */
+@Beta
+public final class Sampler {
+  static final String SAMPLE_RATE_KEY = "sampleRate";
+
+  /** Start building a {@link Sampler}, which keeps every message until rates are set. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final Rate[] typeRates;
+  private final Map<String, Rate> eventRates;
+
+  Sampler(Rate[] typeRates, Map<String, Rate> eventRates) {
+    this.typeRates = typeRates;
+    this.eventRates = eventRates;
+  }
+
+  /**
+   * Returns {@code true} if a message of {@code type} for the given user should be kept. {@code
+   * event} is the name of a track event, and is ignored for other types.
+   */
+  public boolean sample(Message.Type type, String event, String userId, String anonymousId) {
+    Rate rate = rate(type, event);
+    return rate == null || rate.keeps(userId, anonymousId);
+  }
+
+  /** Returns the rate {@code builder} is sampled at, or {@code null} if it is always kept. */
+  Rate rate(MessageBuilder builder) {
+    Message.Type type = builder.type();
+    String event = type == Message.Type.track ? ((TrackMessage.Builder) builder).event() : null;
+    return rate(type, event);
+  }
+
+  /** Returns the rate a message is sampled at, or {@code null} if it is always kept. */
+  Rate rate(Message.Type type, String event) {
+    if (type == Message.Type.track && event != null && !eventRates.isEmpty()) {
+      Rate rate = eventRates.get(event);
+      if (rate != null) {
+        return rate.rate == 1 ? null : rate;
+      }
+    }
+    return typeRates[type.ordinal()];
+  }
+
+  /** A sample rate, with the threshold hashes are compared against and the context it adds. */
+  static final class Rate {
+    final double rate;
+    private final long threshold;
+    private final EncodedMap context;
+    private volatile Merged last;
+
+    Rate(double rate) {
+      this.rate = rate;
+      this.threshold = (long) (rate * 0x100000000L);
+      this.context =
+          EncodedMap.of(Collections.<String, Object>singletonMap(SAMPLE_RATE_KEY, rate));
+    }
+
+    /** Returns {@code true} if messages of the given user are kept at this rate. */
+    boolean keeps(String userId, String anonymousId) {
+      String id = userId != null ? userId : anonymousId;
+      if (id == null) {
+        return true;
+      }
+      return (mix(id.hashCode()) & 0xffffffffL) < threshold;
+    }
+
+    /**
+     * Returns {@code context} with this rate added to it. An {@link EncodedMap} stays encoded, and
+     * the last one merged is remembered, since clients usually share one context between messages.
+     */
+    Map<String, ?> addTo(Map<String, ?> context) {
+      if (context == null || context.isEmpty()) {
+        return this.context;
+      }
+      if (context instanceof EncodedMap) {
+        Merged last = this.last;
+        if (last != null && last.source == context) {
+          return last.merged;
+        }
+        EncodedMap merged = EncodedMap.of(merge(context));
+        this.last = new Merged((EncodedMap) context, merged);
+        return merged;
+      }
+      return merge(context);
+    }
+
+    private Map<String, Object> merge(Map<String, ?> context) {
+      Map<String, Object> merged = new LinkedHashMap<>(context);
+      merged.put(SAMPLE_RATE_KEY, rate);
+      return merged;
+    }
+
+    /** The MurmurHash3 finalizer, which spreads similar IDs over the whole range. */
+    private static int mix(int h) {
+      h ^= h >>> 16;
+      h *= 0x85ebca6b;
+      h ^= h >>> 13;
+      h *= 0xc2b2ae35;
+      h ^= h >>> 16;
+      return h;
+    }
+  }
+
+  /** An encoded context and the encoded merge of a rate into it. */
+  private static final class Merged {
+    final EncodedMap source;
+    final EncodedMap merged;
+
+    Merged(EncodedMap source, EncodedMap merged) {
+      this.source = source;
+      this.merged = merged;
+    }
+  }
+
+  /** Fluent API for creating {@link Sampler} instances. */
+  public static final class Builder {
+    private final Rate[] typeRates = new Rate[Message.Type.values().length];
+    private final Map<String, Rate> eventRates = new HashMap<>();
+
+    Builder() {}
+
+    /** Keep {@code rate} of the messages of {@code type}, between 0 and 1. */
+    public Builder rate(Message.Type type, double rate) {
+      if (type == null) {
+        throw new NullPointerException("Null type");
+      }
+      checkRate(rate);
+      typeRates[type.ordinal()] = rate == 1 ? null : new Rate(rate);
+      return this;
+    }
+
+    /**
+     * Keep {@code rate} of the track events named {@code event}, between 0 and 1. This takes
+     * precedence over the rate for track messages.
+     */
+    public Builder eventRate(String event, double rate) {
+      if (event == null || event.trim().length() == 0) {
+        throw new IllegalArgumentException("event cannot be null or empty.");
+      }
+      checkRate(rate);
+      eventRates.put(event, new Rate(rate));
+      return this;
+    }
+
+    private static void checkRate(double rate) {
+      if (!(rate >= 0 && rate <= 1)) {
+        throw new IllegalArgumentException("rate must be between 0 and 1.");
+      }
+    }
+
+    /** Create a {@link Sampler} with the rates set so far. */
+    public Sampler build() {
+      return new Sampler(typeRates.clone(), new HashMap<>(eventRates));
+    }
+  }
+}
@@ -0,0 +1,237 @@
+package com.rudderstack.sdk.java;
+
+import com.rudderstack.sdk.java.messages.AliasMessage;
+import com.rudderstack.sdk.java.messages.GroupMessage;
+import com.rudderstack.sdk.java.messages.IdentifyMessage;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.PageMessage;
+import com.rudderstack.sdk.java.messages.ScreenMessage;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link MessageTransformer} that remembers the traits last delivered for each user, and trims
+ * identify calls down to the traits that changed since. Identify calls that change nothing, and
+ * carry the same anonymous ID, context and integrations as the last one delivered, are dropped.
+ *
+ * <p>Traits only count as sent once the data plane has accepted them, so an identify call that is
+ * filtered, dropped or fails to upload does not hold back the traits it carried. This is why the
+ * transformer is added as a {@link Plugin}, which registers it as a {@link Callback} as well.
+ *
+ * <p>Users are kept in a bounded LRU cache. An entry expires {@code ttl} after the user's traits
+ * were last delivered in full, and their next identify call is then sent in full again, so the data
+ * plane eventually catches up with traits that were lost. Identify calls without a {@code userId}
+ * are passed through untouched.
+ *
+ * <pre>{@code
+ * RudderAnalytics analytics = RudderAnalytics.builder(writeKey, dataPlaneUrl)
+ *     .plugin(new TraitDiffTransformer(100000, 1, TimeUnit.HOURS))
+ *     .build();
+ * }</pre>
+ */
+@Beta
+public final class TraitDiffTransformer extends MessageTransformer.Typed
+    implements Callback, Plugin {
+  private static final int SEGMENTS = 16;
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private final long ttlNanos;
+
+  /**
+   * @param maxUsers the number of users whose traits are remembered
+   * @param ttl how long after a full identify call traits are sent as diffs
+   */
+  public TraitDiffTransformer(int maxUsers, long ttl, TimeUnit unit) {
+    if (maxUsers < 1) {
+      throw new IllegalArgumentException("maxUsers must not be less than 1.");
+    }
+    if (ttl <= 0) {
+      throw new IllegalArgumentException("ttl must be positive.");
+    }
+    if (unit == null) {
+      throw new NullPointerException("Null unit");
+    }
+    int segmentSize = Math.max(1, (maxUsers + SEGMENTS - 1) / SEGMENTS);
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(segmentSize);
+    }
+    this.ttlNanos = unit.toNanos(ttl);
+  }
+
+  @Override
+  public void configure(RudderAnalytics.Builder builder) {
+    builder.messageTransformer(this).callback(this);
+  }
+
+  @Override
+  public boolean handles(Message.Type type) {
+    return type == Message.Type.identify;
+  }
+
+  @Override
+  boolean identify(IdentifyMessage.Builder builder) {
+    String userId = builder.userId();
+    Map<String, ?> traits = builder.traits();
+    if (userId == null || traits == null) {
+      return true;
+    }
+    Segment segment = segment(userId);
+    long now = System.nanoTime();
+    Map<String, Object> changed;
+    boolean same;
+    synchronized (segment) {
+      Sent sent = segment.get(userId);
+      if (sent == null || sent.traits == null || now - sent.fullAt >= ttlNanos) {
+        // Name the full call, so that its delivery can be told apart from that of a diff.
+        String messageId = builder.messageId();
+        if (messageId == null) {
+          messageId = UUID.randomUUID().toString();
+          builder.messageId(messageId);
+        }
+        if (sent == null) {
+          sent = new Sent();
+          segment.put(userId, sent);
+        }
+        sent.fullMessageId = messageId;
+        return true;
+      }
+      changed = new LinkedHashMap<>();
+      for (Map.Entry<String, ?> trait : traits.entrySet()) {
+        Object value = trait.getValue();
+        Object previous = sent.traits.get(trait.getKey());
+        if (previous == null ? value != null : !previous.equals(value)) {
+          changed.put(trait.getKey(), value);
+        }
+      }
+      same =
+          equal(builder.anonymousId(), sent.anonymousId)
+              && equal(builder.context(), sent.context)
+              && equal(builder.integrations(), sent.integrations);
+    }
+    if (changed.isEmpty() && same) {
+      return false;
+    }
+    if (changed.size() < traits.size()) {
+      builder.traits(changed);
+    }
+    return true;
+  }
+
+  /** Records the traits of a delivered identify call as sent. */
+  @Override
+  public void success(Message message) {
+    if (!(message instanceof IdentifyMessage) || message.userId() == null) {
+      return;
+    }
+    Map<String, ?> traits = ((IdentifyMessage) message).traits();
+    if (traits == null) {
+      return;
+    }
+    Segment segment = segment(message.userId());
+    synchronized (segment) {
+      Sent sent = segment.get(message.userId());
+      if (sent == null) {
+        // Evicted since it was sent, so the next call goes in full anyway.
+        return;
+      }
+      if (sent.traits == null || message.messageId().equals(sent.fullMessageId)) {
+        sent.traits = new HashMap<String, Object>(traits);
+        sent.fullAt = System.nanoTime();
+        sent.fullMessageId = null;
+      } else {
+        sent.traits.putAll(traits);
+      }
+      sent.anonymousId = message.anonymousId();
+      sent.context = message.context();
+      sent.integrations = message.integrations();
+    }
+  }
+
+  /** Leaves the traits of a failed identify call unsent, so that the next call carries them. */
+  @Override
+  public void failure(Message message, Throwable throwable) {}
+
+  private Segment segment(String userId) {
+    int h = userId.hashCode();
+    return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+  }
+
+  /** Compares IDs or maps, treating a {@code null} map as empty, as built messages do. */
+  private static boolean equal(Object a, Object b) {
+    if (a == b) {
+      return true;
+    }
+    if (a == null) {
+      return isEmptyMap(b);
+    }
+    if (b == null) {
+      return isEmptyMap(a);
+    }
+    return a.equals(b);
+  }
+
+  private static boolean isEmptyMap(Object value) {
+    return value instanceof Map && ((Map<?, ?>) value).isEmpty();
+  }
+
+  @Override
+  boolean alias(AliasMessage.Builder builder) {
+    return true;
+  }
+
+  @Override
+  boolean group(GroupMessage.Builder builder) {
+    return true;
+  }
+
+  @Override
+  boolean screen(ScreenMessage.Builder builder) {
+    return true;
+  }
+
+  @Override
+  boolean page(PageMessage.Builder builder) {
+    return true;
+  }
+
+  @Override
+  boolean track(TrackMessage.Builder builder) {
+    return true;
+  }
+
+  /**
+   * The traits last delivered for a user, or {@code null} before any were, along with when they
+   * were last delivered in full and the other fields of the last identify call delivered.
+   */
+  private static final class Sent {
+    Map<String, Object> traits;
+    long fullAt;
+    /** The ID of the full identify call awaiting delivery, if any. */
+    String fullMessageId;
+    String anonymousId;
+    Map<String, ?> context;
+    Map<String, ?> integrations;
+  }
+
+  /** A slice of the cache, guarded by its own monitor and evicting its least recently used user. */
+  private static final class Segment extends LinkedHashMap<String, Sent> {
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+
+    Segment(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Sent> eldest) {
+      return size() > maxSize;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.rudderstack.sdk.java.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.rudderstack.sdk.java.messages.EncodedMap;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A {@link TypeAdapter} that writes the cached encoding of an {@link EncodedMap} as is, instead of
+ * serializing its entries again.
+ */
+public final class EncodedMapAdapter extends TypeAdapter<EncodedMap> {
+  private static final TypeAdapter<Map<String, Object>> MAP_ADAPTER =
+      new Gson().getAdapter(new TypeToken<Map<String, Object>>() {});
+
+  @Override
+  public void write(JsonWriter out, EncodedMap value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.jsonValue(value.json());
+  }
+
+  @Override
+  public EncodedMap read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return EncodedMap.of(MAP_ADAPTER.read(in));
+  }
+}
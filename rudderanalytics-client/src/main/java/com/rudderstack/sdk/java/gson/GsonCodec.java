@@ -0,0 +1,65 @@
+package com.rudderstack.sdk.java.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
+import com.rudderstack.sdk.java.http.JsonCodec;
+import com.rudderstack.sdk.java.http.UploadResponse;
+import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.EncodedMap;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.Date;
+
+/** The default {@link JsonCodec}, backed by Gson. */
+public final class GsonCodec implements JsonCodec {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /** Returns a codec using the Gson configuration the client has always used. */
+  public static GsonCodec create() {
+    Gson gson =
+        new GsonBuilder() //
+            .registerTypeAdapterFactory(new AutoValueAdapterFactory()) //
+            .registerTypeAdapter(Date.class, new ISO8601DateAdapter()) //
+            .registerTypeAdapter(EncodedMap.class, new EncodedMapAdapter()) //
+            .create();
+    return new GsonCodec(gson);
+  }
+
+  private final Gson gson;
+
+  public GsonCodec(Gson gson) {
+    if (gson == null) {
+      throw new NullPointerException("Null gson");
+    }
+    this.gson = gson;
+  }
+
+  @Override
+  public void encode(Batch batch, OutputStream out) throws IOException {
+    JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, UTF_8)));
+    try {
+      gson.toJson(batch, Batch.class, writer);
+    } catch (JsonIOException e) {
+      throw new IOException(e);
+    }
+    writer.flush();
+  }
+
+  @Override
+  public UploadResponse decodeResponse(InputStream in) throws IOException {
+    try {
+      return gson.fromJson(new InputStreamReader(in, UTF_8), UploadResponse.class);
+    } catch (JsonIOException | JsonSyntaxException e) {
+      throw new IOException(e);
+    }
+  }
+}
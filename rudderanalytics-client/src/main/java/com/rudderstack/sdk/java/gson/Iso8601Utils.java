@@ -40,7 +40,7 @@ import java.util.TimeZone;
  *
  * @see <a href="http://www.w3.org/TR/NOTE-datetime">this specification</a>
  */
-final class Iso8601Utils {
+public final class Iso8601Utils {
   /** ID to represent the 'GMT' string */
   static final String GMT_ID = "GMT";
 
@@ -48,7 +48,7 @@ final class Iso8601Utils {
   static final TimeZone TIMEZONE_Z = TimeZone.getTimeZone(GMT_ID);
 
   /** Returns {@code date} formatted as yyyy-MM-ddThh:mm:ss.sssZ */
-  static String format(Date date) {
+  public static String format(Date date) {
     Calendar calendar = new GregorianCalendar(TIMEZONE_Z, Locale.US);
     calendar.setTime(date);
 
@@ -0,0 +1,54 @@
+package com.rudderstack.sdk.java.http;
+
+import com.rudderstack.sdk.java.messages.Batch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+
+import retrofit.converter.ConversionException;
+import retrofit.converter.Converter;
+import retrofit.mime.TypedByteArray;
+import retrofit.mime.TypedInput;
+import retrofit.mime.TypedOutput;
+
+/** A Retrofit {@link Converter} that delegates to a {@link JsonCodec}. */
+public final class CodecConverter implements Converter {
+  static final String MIME_TYPE = "application/json; charset=UTF-8";
+
+  private final JsonCodec codec;
+
+  public CodecConverter(JsonCodec codec) {
+    if (codec == null) {
+      throw new NullPointerException("Null codec");
+    }
+    this.codec = codec;
+  }
+
+  @Override
+  public Object fromBody(TypedInput body, Type type) throws ConversionException {
+    if (type != UploadResponse.class) {
+      throw new ConversionException("Cannot decode " + type);
+    }
+    try (InputStream in = body.in()) {
+      return codec.decodeResponse(in);
+    } catch (IOException e) {
+      throw new ConversionException(e);
+    }
+  }
+
+  @Override
+  public TypedOutput toBody(Object object) {
+    if (!(object instanceof Batch)) {
+      throw new IllegalArgumentException("Cannot encode " + object);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      codec.encode((Batch) object, out);
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not encode batch.", e);
+    }
+    return new TypedByteArray(MIME_TYPE, out.toByteArray());
+  }
+}
@@ -0,0 +1,22 @@
+package com.rudderstack.sdk.java.http;
+
+import com.rudderstack.sdk.java.messages.Batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Encodes batches into, and decodes upload responses from, the JSON wire format of the Rudder API.
+ *
+ * <p>The client uses {@code GsonCodec} unless another implementation is set on the builder.
+ * Implementations must be thread safe, and should write an {@link
+ * com.rudderstack.sdk.java.messages.EncodedMap} as its precomputed {@code json()}.
+ */
+public interface JsonCodec {
+  /** Writes the JSON encoding of {@code batch} to {@code out}. Does not close {@code out}. */
+  void encode(Batch batch, OutputStream out) throws IOException;
+
+  /** Reads an {@link UploadResponse} from {@code in}. Does not close {@code in}. */
+  UploadResponse decodeResponse(InputStream in) throws IOException;
+}
@@ -3,10 +3,23 @@ package com.rudderstack.sdk.java.http;
 import com.rudderstack.sdk.java.messages.Batch;
 
 import retrofit.http.Body;
+import retrofit.http.Header;
 import retrofit.http.POST;
+import retrofit.mime.TypedOutput;
 
 /** REST interface for the Rudder API. */
 public interface RudderService {
   @POST("/v1/batch")
   UploadResponse upload(@Body Batch batch);
+
+  /** Uploads a batch that has already been encoded. */
+  @POST("/v1/batch")
+  UploadResponse upload(@Body TypedOutput batch);
+
+  /**
+   * Uploads a batch that has already been encoded, with {@code authorization} as its Authorization
+   * header, or none if it is {@code null}.
+   */
+  @POST("/v1/batch")
+  UploadResponse upload(@Header("Authorization") String authorization, @Body TypedOutput batch);
 }
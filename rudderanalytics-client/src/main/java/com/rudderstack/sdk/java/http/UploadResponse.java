@@ -6,5 +6,9 @@ import com.rudderstack.sdk.java.gson.AutoGson;
 @AutoValue
 @AutoGson
 public abstract class UploadResponse {
+  public static UploadResponse create(boolean success) {
+    return new AutoValue_UploadResponse(success);
+  }
+
   public abstract boolean success();
 }
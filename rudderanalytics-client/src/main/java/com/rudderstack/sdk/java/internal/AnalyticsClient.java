@@ -1,9 +1,14 @@
 package com.rudderstack.sdk.java.internal;
 
-import com.rudderstack.sdk.java.Callback;
+import com.rudderstack.sdk.java.Aggregator;
+import com.rudderstack.sdk.java.BatchCallback;
+import com.rudderstack.sdk.java.Deduplicator;
+import com.rudderstack.sdk.java.DeliveryResult;
 import com.rudderstack.sdk.java.Log;
+import com.rudderstack.sdk.java.http.JsonCodec;
 import com.rudderstack.sdk.java.http.RudderService;
 import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.EncodedMap;
 import com.rudderstack.sdk.java.messages.Message;
 import com.segment.backo.Backo;
 
@@ -12,41 +17,114 @@ import static com.rudderstack.sdk.java.Log.Level.ERROR;
 import static com.rudderstack.sdk.java.Log.Level.VERBOSE;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
+import okhttp3.Credentials;
 import retrofit.RetrofitError;
+import retrofit.mime.TypedOutput;
 
 public class AnalyticsClient {
-    private static final Map<String, ?> CONTEXT;
+    private static final Map<String, ?> LIBRARY;
+    private static final AtomicInteger CLIENT_IDS = new AtomicInteger();
+    /** How long a write key other than the client's may go without a batch before it is evicted. */
+    private static final long KEY_IDLE_NANOS = TimeUnit.MINUTES.toNanos(1);
 
     static {
         Map<String, String> library = new LinkedHashMap<>();
         library.put("name", "rudder-sdk-java");
         library.put("version", "1.0.1");
-        Map<String, Object> context = new LinkedHashMap<>();
-        context.put("library", Collections.unmodifiableMap(library));
-        CONTEXT = Collections.unmodifiableMap(context);
+        LIBRARY = Collections.unmodifiableMap(library);
     }
 
     private final BlockingQueue<Message> messageQueue;
+    private final EncodedMap context;
     private final RudderService service;
+    /** The client's own write key, or {@code null} if uploads are authorized elsewhere. */
+    private final String writeKey;
+    private final String authorization;
+    /** Weights of write keys in sharing uploads, for keys that do not have the default of 1. */
+    private final Map<String, Integer> writeKeyWeights;
     private final int size;
     private final Log log;
-    private final List<Callback> callbacks;
+    private final List<BatchCallback> callbacks;
+    private final ExecutorService callbackExecutor;
     private final ExecutorService networkExecutor;
+    private final UploadDispatcher uploads;
+    /** Runs the looper on its own thread, or {@code null} if it runs on {@link #looperScheduler}. */
     private final ExecutorService looperExecutor;
-    private final ScheduledExecutorService flushScheduler;
+    private final ScheduledExecutorService looperScheduler;
+    private final Looper looper;
+    /** Messages queued since the looper's turn on the shared scheduler started, if it has one. */
+    private final AtomicInteger looperSignals = new AtomicInteger();
+    private final Runnable looperTurn = new Runnable() {
+        @Override
+        public void run() {
+            int signals = looperSignals.get();
+            try {
+                if (shutdown) {
+                    looper.abandon();
+                } else {
+                    looper.drain();
+                }
+            } catch (RuntimeException e) {
+                log.print(ERROR, e, "Looper failed.");
+            }
+            if (!shutdown && (looper.hasBulk() || !messageQueue.isEmpty())) {
+                // Yield to the other clients, keeping the claim on the next turn.
+                looperSignals.addAndGet(1 - signals);
+                looperScheduler.execute(this);
+            } else if (looperSignals.addAndGet(-signals) != 0) {
+                looperScheduler.execute(this);
+            }
+        }
+    };
+    private volatile boolean shutdown;
+    /** How long the oldest message of a batch may wait before the batch is sent. */
+    private final long lingerNanos;
+    /** Whether a {@link FlushMessage#POISON} is queued, so that further flushes can join it. */
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final JsonCodec codec;
+    private final BufferPool bufferPool;
+    private final Deduplicator deduplicator;
+    private final Aggregator aggregator;
+    private final Backo backo;
+    private final ThreadFactory threadFactory;
+    /** Uploads backing off before their next attempt, failed if the client is shut down. */
+    private final Set<BatchUploadTask> retrying =
+            Collections.newSetFromMap(new ConcurrentHashMap<BatchUploadTask, Boolean>());
+    /** Schedules retries if there is no {@link #looperScheduler}, once one is needed. */
+    private ScheduledExecutorService retryScheduler; // Guarded by this.
+    private final FlushWatermark flushWatermark;
+    private final ClientMetrics metrics;
+    private final ClientEvents events;
+    private volatile ObjectName mbeanName;
+    /** Size of the last encoded batch, used to size the buffer for the next one. */
+    private volatile int lastBatchSize;
 
     public static AnalyticsClient create(RudderService rudderService,
                                          int flushQueueSize,
@@ -54,110 +132,828 @@ public class AnalyticsClient {
                                          Log log,
                                          ThreadFactory threadFactory,
                                          ExecutorService networkExecutor,
-                                         List<Callback> callbacks
+                                         List<BatchCallback> callbacks,
+                                         ExecutorService callbackExecutor,
+                                         Map<String, ?> context,
+                                         JsonCodec codec,
+                                         BufferPool bufferPool,
+                                         Deduplicator deduplicator,
+                                         Aggregator aggregator,
+                                         Backo backo,
+                                         ScheduledExecutorService looperScheduler,
+                                         String writeKey,
+                                         Map<String, Integer> writeKeyWeights,
+                                         int maxUploadsInFlight
     ) {
         return new AnalyticsClient(
                 new LinkedBlockingQueue<Message>(),
+                batchContext(context),
                 rudderService,
                 flushQueueSize,
                 flushIntervalInMillis,
                 log,
                 threadFactory,
                 networkExecutor,
-                callbacks
+                callbacks,
+                callbackExecutor,
+                codec,
+                bufferPool,
+                deduplicator,
+                aggregator,
+                backo,
+                looperScheduler,
+                writeKey,
+                writeKeyWeights,
+                maxUploadsInFlight
         );
     }
 
+    /**
+     * Returns the context sent with every batch: the library information merged with any static
+     * context registered by the user. It is encoded once here rather than on every upload.
+     */
+    static EncodedMap batchContext(Map<String, ?> userContext) {
+        Map<String, Object> context = new LinkedHashMap<>();
+        if (userContext != null) {
+            context.putAll(userContext);
+        }
+        context.put("library", LIBRARY);
+        return EncodedMap.of(context);
+    }
+
     AnalyticsClient(
             BlockingQueue<Message> messageQueue,
+            EncodedMap context,
             RudderService service,
             int maxQueueSize,
             long flushIntervalInMillis,
             Log log,
             ThreadFactory threadFactory,
             ExecutorService networkExecutor,
-            List<Callback> callbacks) {
+            List<BatchCallback> callbacks,
+            ExecutorService callbackExecutor,
+            JsonCodec codec,
+            BufferPool bufferPool,
+            Deduplicator deduplicator,
+            Aggregator aggregator,
+            Backo backo,
+            ScheduledExecutorService looperScheduler,
+            String writeKey,
+            Map<String, Integer> writeKeyWeights,
+            int maxUploadsInFlight) {
         this.messageQueue = messageQueue;
+        this.context = context;
         this.service = service;
+        this.writeKey = writeKey;
+        this.authorization = writeKey == null ? null : Credentials.basic(writeKey, "");
+        this.writeKeyWeights = writeKeyWeights == null
+                ? Collections.<String, Integer>emptyMap()
+                : writeKeyWeights;
         this.size = maxQueueSize;
         this.log = log;
         this.callbacks = callbacks;
-        this.looperExecutor = Executors.newSingleThreadExecutor(threadFactory);
+        this.callbackExecutor = callbackExecutor;
+        this.codec = codec;
+        this.bufferPool = bufferPool;
+        this.deduplicator = deduplicator;
+        this.aggregator = aggregator;
+        this.backo = backo == null ? BatchUploadTask.BACKO : backo;
+        this.threadFactory = threadFactory;
+        this.flushWatermark = new FlushWatermark(callbackExecutor);
+        this.metrics = new ClientMetrics();
+        this.events = ClientEvents.load();
         this.networkExecutor = networkExecutor;
+        this.uploads = new UploadDispatcher(networkExecutor, maxUploadsInFlight, maxQueueSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalInMillis);
+        this.looper = new Looper();
+        this.looperScheduler = looperScheduler;
+        if (looperScheduler == null) {
+            looperExecutor = Executors.newSingleThreadExecutor(threadFactory);
+            looperExecutor.submit(looper);
+        } else {
+            looperExecutor = null;
+        }
+    }
+
+    public void enqueue(Message message) {
+        enqueue(message, null);
+    }
 
-        looperExecutor.submit(new Looper());
+    /**
+     * Enqueues {@code message}, completing {@code result}, if it is not {@code null}, once the
+     * message is delivered, given up on, or dropped.
+     */
+    public void enqueue(Message message, CompletableFuture<DeliveryResult> result) {
+        enqueue(message, null, result);
+    }
 
-        flushScheduler = Executors.newScheduledThreadPool(1, threadFactory);
-        flushScheduler.scheduleAtFixedRate(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        flush();
-                    }
-                },
-                flushIntervalInMillis,
-                flushIntervalInMillis,
-                TimeUnit.MILLISECONDS);
+    /**
+     * Enqueues {@code message} to be sent with {@code writeKey}, or the client's own write key if
+     * it is {@code null}, in batches of its own. Completes {@code result}, if it is not {@code
+     * null}, once the message is delivered, given up on, or dropped.
+     */
+    public void enqueue(
+            Message message, String writeKey, CompletableFuture<DeliveryResult> result) {
+        if (admit(message, writeKey, result)) {
+            put(new PendingMessage(message, writeKey, result, System.nanoTime()));
+        }
     }
 
-    public void enqueue(Message message) {
+    /**
+     * Enqueues {@code messages} in a single queue operation. They are batched as if they had been
+     * enqueued one by one, so batches still hold at most the flush queue size.
+     */
+    public void enqueueAll(List<Message> messages) {
+        List<Message> admitted = messages;
+        if (deduplicator != null || aggregator != null) {
+            admitted = new ArrayList<>(messages.size());
+            for (int i = 0; i < messages.size(); i++) {
+                if (admit(messages.get(i), null, null)) {
+                    admitted.add(messages.get(i));
+                }
+            }
+        }
+        if (admitted.size() == 1) {
+            put(new PendingMessage(admitted.get(0), null, null, System.nanoTime()));
+        } else if (!admitted.isEmpty()) {
+            put(new BulkMessage(admitted, System.nanoTime()));
+        }
+    }
+
+    /** Returns {@code false} if {@code message} is dropped as a duplicate or aggregated. */
+    private boolean admit(
+            Message message, String writeKey, CompletableFuture<DeliveryResult> result) {
+        if (deduplicator != null && !deduplicator.add(message.messageId())) {
+            log.print(VERBOSE, "Dropping duplicate message %s.", message.messageId());
+            metrics.duplicatesSuppressed.increment();
+            events.messagesDropped("duplicate", 1);
+            if (result != null) {
+                result.complete(DeliveryResult.dropped(message));
+            }
+            return false;
+        }
+        // Roll-ups are sent with the client's own write key.
+        if (aggregator != null && writeKey == null && aggregator.add(message)) {
+            metrics.messagesAggregated.increment();
+            if (result != null) {
+                result.complete(DeliveryResult.aggregated(message));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /** Returns how many messages a queue entry holds. */
+    private static int count(Message message) {
+        if (message instanceof FlushMessage) {
+            return 0;
+        }
+        return message instanceof BulkMessage ? ((BulkMessage) message).messages.size() : 1;
+    }
+
+    private void put(Message message) {
+        int count = count(message);
+        // Counted before it is queued, so that the looper never takes it off the depth first.
+        metrics.queueDepth.add(count);
         try {
             messageQueue.put(message);
+            metrics.messagesEnqueued.add(count);
+            if (looperScheduler != null) {
+                signal();
+            }
         } catch (InterruptedException e) {
             log.print(ERROR, e, "Interrupted while adding message %s.", message);
+            metrics.queueDepth.add(-count);
+            if (message == FlushMessage.POISON) {
+                flushRequested.set(false);
+            }
+            if (!(message instanceof FlushMessage)) {
+                events.messagesDropped("interrupted", count);
+            }
+            if (message instanceof PendingMessage && ((PendingMessage) message).result != null) {
+                PendingMessage pending = (PendingMessage) message;
+                pending.result.complete(DeliveryResult.failed(pending.message, e));
+            } else if (message instanceof FlushMessage && ((FlushMessage) message).flushed != null) {
+                ((FlushMessage) message).flushed.completeExceptionally(e);
+            }
+        }
+    }
+
+    /** Gives the looper a turn on the shared scheduler, unless it already has one coming. */
+    private void signal() {
+        if (looperSignals.getAndIncrement() == 0) {
+            try {
+                looperScheduler.execute(looperTurn);
+            } catch (RejectedExecutionException e) {
+                log.print(ERROR, e, "Could not schedule the looper.");
+            }
         }
     }
 
+    /**
+     * Flushes the queue. A flush requested while another is still queued joins it instead of
+     * queueing a second one.
+     */
     public void flush() {
-        enqueue(FlushMessage.POISON);
+        drainAggregator();
+        if (flushRequested.compareAndSet(false, true)) {
+            events.flushRequested(false);
+            put(FlushMessage.POISON);
+        }
+    }
+
+    /**
+     * Flushes the queue, returning a future that completes once every message enqueued before
+     * this call has been uploaded or given up on.
+     */
+    public CompletableFuture<Void> flushAndWait() {
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+        drainAggregator();
+        events.flushRequested(true);
+        put(new FlushMessage(flushed));
+        return flushed;
+    }
+
+    private void drainAggregator() {
+        if (aggregator != null) {
+            // Each flush ends an aggregation window.
+            for (Message rollUp : aggregator.drain()) {
+                put(new PendingMessage(rollUp, null, null, System.nanoTime()));
+            }
+        }
+    }
+
+    /** Returns the metrics of this client. */
+    public ClientMetrics metrics() {
+        return metrics;
+    }
+
+    /** Counts a message dropped by sampling before it was enqueued. */
+    public void sampledOut() {
+        metrics.messagesSampledOut.increment();
+        events.messagesDropped("sampled", 1);
+    }
+
+    /** Counts a message dropped by a transformer or interceptor before it was enqueued. */
+    public void filtered() {
+        metrics.messagesFiltered.increment();
+        events.messagesDropped("filtered", 1);
+    }
+
+    /**
+     * Registers this client's metrics with the platform MBean server, under a name unique to this
+     * client. They are unregistered on {@link #shutdown()}.
+     */
+    public void registerMBean() throws JMException {
+        ObjectName name = new ObjectName(
+                "com.rudderstack.sdk.java:type=AnalyticsClient,name=client-"
+                        + CLIENT_IDS.incrementAndGet());
+        ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+        mbeanName = name;
     }
 
     public void shutdown() {
-        messageQueue.clear();
-        looperExecutor.shutdownNow();
-        flushScheduler.shutdownNow();
+        shutdown = true;
+        List<Message> dropped = new ArrayList<>();
+        messageQueue.drainTo(dropped);
+        int droppedMessages = 0;
+        IllegalStateException shutdown = new IllegalStateException("Client was shut down.");
+        for (Message message : dropped) {
+            droppedMessages += count(message);
+            if (message instanceof PendingMessage && ((PendingMessage) message).result != null) {
+                PendingMessage pending = (PendingMessage) message;
+                pending.result.complete(DeliveryResult.failed(pending.message, shutdown));
+            } else if (message instanceof FlushMessage && ((FlushMessage) message).flushed != null) {
+                ((FlushMessage) message).flushed.completeExceptionally(shutdown);
+            }
+        }
+        metrics.queueDepth.add(-droppedMessages);
+        if (droppedMessages > 0) {
+            events.messagesDropped("shutdown", droppedMessages);
+        }
+        flushWatermark.fail(shutdown);
+        ObjectName name = mbeanName;
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException e) {
+                log.print(ERROR, e, "Could not unregister %s.", name);
+            }
+        }
+        // The looper fails the batches it holds once it notices.
+        if (looperExecutor != null) {
+            looperExecutor.shutdownNow();
+        } else {
+            signal();
+        }
+        for (BatchUploadTask task : retrying) {
+            if (retrying.remove(task)) {
+                task.abandon(shutdown);
+            }
+        }
+        synchronized (this) {
+            if (retryScheduler != null) {
+                retryScheduler.shutdownNow();
+            }
+        }
+        uploads.release();
         networkExecutor.shutdown(); // Let in-flight requests complete.
+        if (callbackExecutor != null) {
+            callbackExecutor.shutdown(); // Let pending callbacks run.
+        }
+    }
+
+    /** Encodes {@code batch} into a pooled buffer, which the caller must release. */
+    PooledBuffer encode(Batch batch) throws IOException {
+        events.beginEncode(batch);
+        PooledBuffer buffer = bufferPool.acquire(lastBatchSize);
+        try {
+            codec.encode(batch, buffer);
+        } catch (IOException | RuntimeException e) {
+            buffer.release();
+            events.endEncode(batch, -1);
+            throw e;
+        }
+        lastBatchSize = buffer.size();
+        metrics.batchBytes.record(buffer.size());
+        events.endEncode(batch, buffer.size());
+        return buffer;
+    }
+
+    /**
+     * Hands {@code task} back to the upload dispatcher after {@code delayMillis}, so that it holds
+     * neither a network thread nor an upload slot while it backs off. Returns {@code false} if the
+     * client is shut down, in which case the caller has to give up on the task.
+     */
+    boolean retry(final BatchUploadTask task, long delayMillis) {
+        retrying.add(task);
+        if (shutdown) {
+            // Shutdown may have failed the other retries before this one was added.
+            return !retrying.remove(task);
+        }
+        try {
+            task.pendingRetry = retryScheduler().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (retrying.remove(task)) {
+                        uploads.submit(task.lane, task, task.batch.batch().size());
+                    }
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return !retrying.remove(task);
+        }
+    }
+
+    private ScheduledExecutorService retryScheduler() {
+        if (looperScheduler != null) {
+            return looperScheduler;
+        }
+        synchronized (this) {
+            if (retryScheduler == null) {
+                retryScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            }
+            return retryScheduler;
+        }
     }
 
     /**
-     * Looper runs on a background thread and takes messages from the queue. Once it collects enough
-     * messages, it triggers a flush.
+     * Notifies the callbacks, and completes the futures in {@code results} if it is not {@code
+     * null}, with the outcome of {@code batch} on the callback executor. {@code enqueuedNanos}
+     * holds when each of the batch's messages was enqueued, or is {@code null} if not measured.
+     */
+    void dispatch(
+            final Batch batch,
+            final Throwable failure,
+            final List<CompletableFuture<DeliveryResult>> results,
+            long[] enqueuedNanos) {
+        if (failure == null) {
+            metrics.batchesUploaded.increment();
+        } else {
+            metrics.batchesFailed.increment();
+        }
+        // Measured on the monotonic clock rather than from message timestamps, which callers set.
+        if (enqueuedNanos != null) {
+            long now = System.nanoTime();
+            for (int i = 0; i < batch.batch().size(); i++) {
+                metrics.ackLatencyMillis.record(
+                        TimeUnit.NANOSECONDS.toMillis(now - enqueuedNanos[i]));
+            }
+        }
+        if (callbacks.isEmpty() && results == null) {
+            return;
+        }
+        Runnable notification = new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                for (BatchCallback callback : callbacks) {
+                    try {
+                        if (failure == null) {
+                            callback.success(batch);
+                        } else {
+                            callback.failure(batch, failure);
+                        }
+                    } catch (RuntimeException e) {
+                        log.print(ERROR, e, "Callback failed for batch %s.", batch.sequence());
+                    }
+                }
+                if (results != null) {
+                    complete(batch, failure, results);
+                }
+                metrics.callbackLatencyMicros.record((System.nanoTime() - start) / 1000);
+            }
+        };
+        try {
+            callbackExecutor.execute(notification);
+        } catch (RejectedExecutionException e) {
+            log.print(ERROR, e, "Could not notify callbacks for batch %s.", batch.sequence());
+            if (results != null) {
+                complete(batch, failure, results);
+            }
+        }
+    }
+
+    private static void complete(
+            Batch batch, Throwable failure, List<CompletableFuture<DeliveryResult>> results) {
+        List<Message> messages = batch.batch();
+        for (int i = 0; i < messages.size(); i++) {
+            CompletableFuture<DeliveryResult> result = results.get(i);
+            if (result != null) {
+                result.complete(failure == null
+                        ? DeliveryResult.delivered(messages.get(i))
+                        : DeliveryResult.failed(messages.get(i), failure));
+            }
+        }
+    }
+
+    /**
+     * Takes messages off the queue and hands them to the network executor in batches, once a batch
+     * is full, once its oldest message has waited for the flush interval, or on a flush. Messages
+     * sent with another write key than the client's are batched separately, per key; keys that go
+     * without a batch for a while are evicted the next time the looper runs.
+     *
+     * <p>On its own thread, it blocks on the queue, and with no messages held and no aggregator does
+     * no periodic work. On a shared scheduler, it runs in turns of at most a batch's worth of
+     * messages, started when messages are queued or a deadline passes; a bulk enqueue is split
+     * across turns.
      */
     class Looper implements Runnable {
+        private final WriteKey own = new WriteKey(authorization, weight(writeKey));
+        // Other write keys, by key.
+        private final Map<String, WriteKey> keys = new HashMap<>();
+        // Batches in the order they were started, some of them possibly sent already.
+        private final ArrayDeque<OpenBatch> open = new ArrayDeque<>();
+        // Ordinal of the first message in the next batch, see FlushWatermark.
+        private long batched;
+        // When write keys are next checked for eviction.
+        private long evictAt = System.nanoTime() + KEY_IDLE_NANOS;
+        // When the aggregation window ends, if there is an aggregator.
+        private long windowEnds = System.nanoTime() + lingerNanos;
+        // Messages left to take before a coalesced flush is done, or 0 if none is pending.
+        private int flushAfter;
+        // A bulk enqueue that a turn on the shared scheduler left part of, and its next index.
+        private BulkMessage bulk;
+        private int bulkNext;
+        // Whether to flush once the bulk enqueue is added, as it came last before a flush.
+        private boolean bulkFlushes;
+        // When the scheduled wakeup of a shared looper runs.
+        private long wakeupAt = System.nanoTime();
+
         @Override
         public void run() {
-            List<Message> messages = new ArrayList<>();
             try {
                 //noinspection InfiniteLoopStatement
                 while (true) {
-                    Message message = messageQueue.take();
+                    long now = System.nanoTime();
+                    expire(now);
+                    Message message = next(now);
+                    if (message != null) {
+                        process(message);
+                    }
+                }
+            } catch (InterruptedException e) {
+                log.print(DEBUG, "Looper interrupted while polling for messages.");
+                abandon();
+            }
+        }
 
-                    if (message != FlushMessage.POISON) {
-                        messages.add(message);
-                    } else if (messages.size() < 1) {
-                        log.print(VERBOSE, "No messages to flush.");
-                        continue;
+        /** Fails the batches still being filled, once the client is shut down. */
+        void abandon() {
+            IllegalStateException shutdown = new IllegalStateException("Client was shut down.");
+            int abandoned = 0;
+            if (bulk != null) {
+                abandoned = bulk.messages.size() - bulkNext;
+                metrics.queueDepth.add(-abandoned);
+                bulk = null;
+            }
+            for (OpenBatch batch = open.poll(); batch != null; batch = open.poll()) {
+                if (batch.key.batch == batch) {
+                    batch.key.batch = null;
+                    abandoned += batch.messages.size();
+                    dispatch(
+                            Batch.create(context, batch.messages),
+                            shutdown,
+                            batch.results,
+                            batch.enqueuedNanos);
+                }
+            }
+            if (abandoned > 0) {
+                log.print(DEBUG, "Dropped %s message(s) not yet batched on shutdown.", abandoned);
+                events.messagesDropped("shutdown", abandoned);
+            }
+        }
+
+        /** Runs one turn on the shared scheduler, returning once the queue is empty or after a batch. */
+        void drain() {
+            long now = System.nanoTime();
+            expire(now);
+            for (int left = size; left > 0; ) {
+                if (bulk != null) {
+                    left -= addBulk(left);
+                    continue;
+                }
+                Message message = messageQueue.poll();
+                if (message == null) {
+                    break;
+                }
+                process(message);
+                if (bulk == null) {
+                    left--;
+                }
+            }
+            if (!hasDeadline()) {
+                return;
+            }
+            long deadline = deadline();
+            // Keep a wakeup that is still due first.
+            if (now - wakeupAt >= 0 || deadline - wakeupAt < 0) {
+                wakeupAt = deadline;
+                looperScheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        signal();
                     }
+                }, deadline - now, TimeUnit.NANOSECONDS);
+            }
+        }
 
-                    if (messages.size() >= size || message == FlushMessage.POISON) {
-                        Batch batch = Batch.create(CONTEXT, messages);
-                        log.print(
-                                VERBOSE,
-                                "Batching %s message(s) into batch %s.",
-                                messages.size(),
-                                batch.sequence());
-                        networkExecutor.submit(BatchUploadTask.create(AnalyticsClient.this, batch));
-                        messages = new ArrayList<>();
+        /** Ends the aggregation window and sends the batch, if their time is up. */
+        private void expire(long now) {
+            if (aggregator != null && now - windowEnds >= 0) {
+                windowEnds = now + lingerNanos;
+                for (Message rollUp : aggregator.drain()) {
+                    metrics.messagesEnqueued.increment();
+                    add(own, rollUp, null, now);
+                }
+            }
+            for (OpenBatch batch = open.peek(); batch != null; batch = open.peek()) {
+                if (batch.key.batch == batch && now - batch.started < lingerNanos) {
+                    break;
+                }
+                open.poll();
+                if (batch.key.batch == batch) {
+                    submitBatch(batch);
+                }
+            }
+            if (!keys.isEmpty() && now - evictAt >= 0) {
+                evict(now);
+            }
+        }
+
+        /** Returns whether part of a bulk enqueue is left for the next turn. */
+        boolean hasBulk() {
+            return bulk != null;
+        }
+
+        /** Returns whether the looper has to run at some point even if nothing is queued. */
+        private boolean hasDeadline() {
+            return !open.isEmpty() || aggregator != null;
+        }
+
+        /** Returns when the looper next has to run, if {@link #hasDeadline()}. */
+        private long deadline() {
+            if (open.isEmpty()) {
+                return windowEnds;
+            }
+            long deadline = open.peek().started + lingerNanos;
+            return aggregator != null && windowEnds - deadline < 0 ? windowEnds : deadline;
+        }
+
+        /** Drops write keys that have had no batch for a while and no uploads waiting. */
+        private void evict(long now) {
+            evictAt = now + KEY_IDLE_NANOS;
+            int evicted = 0;
+            for (Iterator<WriteKey> i = keys.values().iterator(); i.hasNext(); ) {
+                WriteKey key = i.next();
+                if (key.batch == null
+                        && now - key.lastStarted >= KEY_IDLE_NANOS
+                        && uploads.isIdle(key.lane)) {
+                    i.remove();
+                    evicted++;
+                }
+            }
+            if (evicted > 0) {
+                log.print(VERBOSE, "Evicted %s idle write key(s).", evicted);
+            }
+        }
+
+        /**
+         * Returns the next queued message, or {@code null} if the batch's linger time or the
+         * aggregation window ran out first.
+         */
+        private Message next(long now) throws InterruptedException {
+            if (!hasDeadline()) {
+                return messageQueue.take();
+            }
+            return messageQueue.poll(deadline() - now, TimeUnit.NANOSECONDS);
+        }
+
+        private void process(Message message) {
+            boolean flushNow = flushAfter > 0 && --flushAfter == 0;
+            if (message instanceof BulkMessage) {
+                // Its messages come off the queue depth as they are added.
+                bulk = (BulkMessage) message;
+                bulkNext = 0;
+                bulkFlushes = flushNow;
+                if (looperScheduler == null) {
+                    addBulk(Integer.MAX_VALUE);
+                }
+                return;
+            }
+            metrics.queueDepth.add(-count(message));
+            if (message instanceof FlushMessage) {
+                FlushMessage flush = (FlushMessage) message;
+                if (flush == FlushMessage.POISON) {
+                    flushRequested.set(false);
+                    // Flushes that joined this one may have been requested after enqueueing
+                    // messages that are still behind it in the queue.
+                    flushAfter = messageQueue.size();
+                    if (flushAfter > 0) {
+                        return;
                     }
                 }
-            } catch (InterruptedException e) {
-                log.print(DEBUG, "Looper interrupted while polling for messages.");
+                flushBatches();
+                awaitFlush(flush, batched);
+                return;
+            }
+
+            PendingMessage pending = (PendingMessage) message;
+            WriteKey key = pending.writeKey == null ? own : key(pending.writeKey);
+            add(key, pending.message, pending.result, pending.enqueuedNanos);
+            if (flushNow) {
+                flushBatches();
+            }
+        }
+
+        /** Adds up to {@code max} messages of the bulk enqueue, returning how many it added. */
+        private int addBulk(int max) {
+            List<Message> messages = bulk.messages;
+            int end = messages.size() - bulkNext <= max ? messages.size() : bulkNext + max;
+            int added = end - bulkNext;
+            metrics.queueDepth.add(-added);
+            for (; bulkNext < end; bulkNext++) {
+                add(own, messages.get(bulkNext), null, bulk.enqueuedNanos);
+            }
+            if (bulkNext == messages.size()) {
+                bulk = null;
+                if (bulkFlushes) {
+                    flushBatches();
+                }
+            }
+            return added;
+        }
+
+        private WriteKey key(String writeKey) {
+            if (writeKey.equals(AnalyticsClient.this.writeKey)) {
+                return own;
+            }
+            WriteKey key = keys.get(writeKey);
+            if (key == null) {
+                key = new WriteKey(Credentials.basic(writeKey, ""), weight(writeKey));
+                keys.put(writeKey, key);
+            }
+            return key;
+        }
+
+        private void add(
+                WriteKey key,
+                Message message,
+                CompletableFuture<DeliveryResult> result,
+                long enqueuedNanos) {
+            OpenBatch batch = key.batch;
+            if (batch == null) {
+                batch = new OpenBatch(key, System.nanoTime(), size);
+                key.batch = batch;
+                key.lastStarted = batch.started;
+                open.add(batch);
+            }
+            batch.add(message, result, enqueuedNanos);
+            if (batch.messages.size() >= size) {
+                submitBatch(batch);
+            }
+        }
+
+        private void flushBatches() {
+            boolean flushed = false;
+            for (OpenBatch batch = open.poll(); batch != null; batch = open.poll()) {
+                if (batch.key.batch == batch) {
+                    submitBatch(batch);
+                    flushed = true;
+                }
+            }
+            if (!flushed) {
+                log.print(VERBOSE, "No messages to flush.");
             }
         }
+
+        private void submitBatch(OpenBatch open) {
+            List<Message> messages = open.messages;
+            Batch batch = Batch.create(context, messages);
+            metrics.batchMessages.record(messages.size());
+            log.print(
+                    VERBOSE,
+                    "Batching %s message(s) into batch %s.",
+                    messages.size(),
+                    batch.sequence());
+            open.key.batch = null;
+            BatchUploadTask task = BatchUploadTask.create(
+                    AnalyticsClient.this,
+                    batch,
+                    open.key.lane,
+                    open.key.authorization,
+                    batched,
+                    open.results,
+                    open.enqueuedNanos);
+            uploads.submit(open.key.lane, task, messages.size());
+            batched += messages.size();
+        }
     }
 
-    static class BatchUploadTask implements Runnable {
-        private static final Backo BACKO =
+    private int weight(String writeKey) {
+        Integer weight = writeKey == null ? null : writeKeyWeights.get(writeKey);
+        return weight == null ? 1 : weight;
+    }
+
+    /** A write key, the batch being filled for it, and its share of uploads. */
+    final class WriteKey {
+        final String authorization;
+        final UploadDispatcher.Lane lane;
+        // The batch being filled, or null if there is none.
+        OpenBatch batch;
+        // When the last batch was started, to evict keys that have gone idle.
+        long lastStarted;
+
+        WriteKey(String authorization, int weight) {
+            this.authorization = authorization;
+            this.lane = uploads.lane(weight);
+        }
+    }
+
+    /** A batch being filled by the looper. */
+    static final class OpenBatch {
+        final WriteKey key;
+        // When the oldest message of the batch was added.
+        final long started;
+        final List<Message> messages = new ArrayList<>();
+        // When each of the batch's messages was enqueued, by index.
+        final long[] enqueuedNanos;
+        // Futures of the batch's messages by index, only allocated once one is waited on.
+        List<CompletableFuture<DeliveryResult>> results;
+
+        OpenBatch(WriteKey key, long started, int capacity) {
+            this.key = key;
+            this.started = started;
+            this.enqueuedNanos = new long[capacity];
+        }
+
+        void add(Message message, CompletableFuture<DeliveryResult> result, long enqueuedNanos) {
+            if (result != null && results == null) {
+                results = new ArrayList<>(
+                        Collections.<CompletableFuture<DeliveryResult>>nCopies(
+                                messages.size(), null));
+            }
+            if (results != null) {
+                results.add(result);
+            }
+            this.enqueuedNanos[messages.size()] = enqueuedNanos;
+            messages.add(message);
+        }
+    }
+
+    private void awaitFlush(FlushMessage flush, long batched) {
+        if (flush.flushed != null) {
+            flushWatermark.await(batched, flush.flushed);
+        }
+    }
+
+    /**
+     * Uploads a batch, retrying failed attempts with backoff. Each attempt runs as an upload of its
+     * own: between attempts the task waits on a scheduler, then goes back to its lane.
+     */
+    static class BatchUploadTask implements Runnable, UploadDispatcher.Rejectable {
+        static final Backo BACKO =
                 Backo.builder() //
                         .base(TimeUnit.SECONDS, 15) //
                         .cap(TimeUnit.HOURS, 1) //
@@ -168,49 +964,116 @@ public class AnalyticsClient {
         private final AnalyticsClient client;
         private final Backo backo;
         final Batch batch;
+        /** The dispatcher lane the batch is uploaded on, and retried on. */
+        final UploadDispatcher.Lane lane;
+        /** The Authorization header to upload the batch with, or {@code null} for none. */
+        private final String authorization;
+        /** Ordinal of the batch's first message, or -1 if flushes do not track it. */
+        private final long firstOrdinal;
+        /** Futures of the batch's messages by index, or {@code null} if none is waited on. */
+        private final List<CompletableFuture<DeliveryResult>> results;
+        /** When each of the batch's messages was enqueued, or {@code null} if not measured. */
+        private final long[] enqueuedNanos;
+        // The encoded body, kept from the first attempt until the last. Attempts run one at a
+        // time, each handed over through an executor, so these need no lock.
+        private PooledBuffer buffer;
+        private int attempts;
+        /** The scheduled retry, cancelled if the client is shut down first. */
+        volatile ScheduledFuture<?> pendingRetry;
 
-        static BatchUploadTask create(AnalyticsClient client, Batch batch) {
-            return new BatchUploadTask(client, BACKO, batch);
+        static BatchUploadTask create(
+                AnalyticsClient client,
+                Batch batch,
+                UploadDispatcher.Lane lane,
+                String authorization,
+                long firstOrdinal,
+                List<CompletableFuture<DeliveryResult>> results,
+                long[] enqueuedNanos) {
+            return new BatchUploadTask(
+                    client,
+                    client.backo,
+                    batch,
+                    lane,
+                    authorization,
+                    firstOrdinal,
+                    results,
+                    enqueuedNanos);
         }
 
-        BatchUploadTask(AnalyticsClient client, Backo backo, Batch batch) {
+        BatchUploadTask(
+                AnalyticsClient client,
+                Backo backo,
+                Batch batch,
+                List<CompletableFuture<DeliveryResult>> results) {
+            this(
+                    client,
+                    backo,
+                    batch,
+                    client.uploads.lane(1),
+                    client.authorization,
+                    -1,
+                    results,
+                    null);
+        }
+
+        BatchUploadTask(
+                AnalyticsClient client,
+                Backo backo,
+                Batch batch,
+                UploadDispatcher.Lane lane,
+                String authorization,
+                long firstOrdinal,
+                List<CompletableFuture<DeliveryResult>> results,
+                long[] enqueuedNanos) {
             this.client = client;
             this.batch = batch;
+            this.lane = lane;
+            this.authorization = authorization;
             this.backo = backo;
+            this.firstOrdinal = firstOrdinal;
+            this.results = results;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        /** Reports the outcome of the batch, a success if {@code failure} is {@code null}. */
+        private void dispatch(Throwable failure) {
+            client.dispatch(batch, failure, results, enqueuedNanos);
         }
 
         /**
          * Returns {@code true} to indicate a batch should be retried. {@code false} otherwise.
          */
-        boolean upload() {
+        boolean upload(TypedOutput body, int attempt) {
+            long start = System.nanoTime();
+            int status = -1;
+            client.events.beginUpload(batch, attempt);
             try {
                 client.log.print(VERBOSE, "Uploading batch %s.", batch.sequence());
 
                 // Ignore return value, UploadResponse#onSuccess will never return false for 200 OK
-                client.service.upload(batch);
+                client.service.upload(authorization, body);
+                status = 200;
 
                 client.log.print(VERBOSE, "Uploaded batch %s.", batch.sequence());
-                for (Message message : batch.batch()) {
-                    for (Callback callback : client.callbacks) {
-                        callback.success(message);
-                    }
-                }
+                dispatch(null);
                 return false;
             } catch (RetrofitError error) {
                 switch (error.getKind()) {
                     case NETWORK:
                         client.log.print(
                                 DEBUG, error, "Could not upload batch %s. Retrying.", batch.sequence());
+                        client.metrics.retriesNetwork.increment();
                         return true;
                     case HTTP:
                         // Retry 5xx and 429 responses.
-                        int status = error.getResponse().getStatus();
+                        status = error.getResponse().getStatus();
                         if (is5xx(status)) {
                             client.log.print(
                                     DEBUG,
                                     error,
                                     "Could not upload batch %s due to server error. Retrying.",
                                     batch.sequence());
+                            client.metrics.retriesServerError.increment();
                             return true;
                         }
                         if (status == 429) {
@@ -219,6 +1082,7 @@ public class AnalyticsClient {
                                     error,
                                     "Could not upload batch %s due to rate limiting. Retrying.",
                                     batch.sequence());
+                            client.metrics.retriesRateLimited.increment();
                             return true;
                         }
                         client.log.print(
@@ -226,45 +1090,96 @@ public class AnalyticsClient {
                                 error,
                                 "Could not upload batch %s due to HTTP error. Giving up.",
                                 batch.sequence());
-                        for (Message message : batch.batch()) {
-                            for (Callback callback : client.callbacks) {
-                                callback.failure(message, error);
-                            }
-                        }
+                        dispatch(error);
                         return false; // Don't retry
                     default:
                         client.log.print(
                                 ERROR, error, "Could not upload batch %s. Giving up.", batch.sequence());
-                        for (Message message : batch.batch()) {
-                            for (Callback callback : client.callbacks) {
-                                callback.failure(message, error);
-                            }
-                        }
+                        dispatch(error);
                         return false; // Don't retry
                 }
+            } finally {
+                client.metrics.uploadLatencyMicros.record((System.nanoTime() - start) / 1000);
+                client.events.endUpload(batch, attempt, status);
             }
         }
 
         @Override
         public void run() {
-            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
-                boolean retry = upload();
-                if (!retry) return;
+            boolean done = true;
+            try {
+                done = attempt();
+            } finally {
+                if (done) {
+                    finish();
+                }
+            }
+        }
+
+        @Override
+        public void rejected(RejectedExecutionException e) {
+            client.log.print(ERROR, e, "Could not upload batch %s. Giving up.", batch.sequence());
+            try {
+                dispatch(e);
+            } finally {
+                finish();
+            }
+        }
+
+        /** Gives up on the batch while it backs off, because the client was shut down. */
+        void abandon(IllegalStateException shutdown) {
+            ScheduledFuture<?> retry = pendingRetry;
+            if (retry != null) {
+                retry.cancel(false);
+            }
+            client.log.print(
+                    DEBUG, "Client shut down while batch %s backed off.", batch.sequence());
+            try {
+                dispatch(shutdown);
+            } finally {
+                finish();
+            }
+        }
+
+        /** Makes the next attempt, returning {@code false} if another one is scheduled. */
+        private boolean attempt() {
+            if (buffer == null) {
                 try {
-                    backo.sleep(attempt);
-                } catch (InterruptedException e) {
+                    buffer = client.encode(batch);
+                } catch (IOException | RuntimeException e) {
                     client.log.print(
-                            DEBUG, "Thread interrupted while backing off for batch %s.", batch.sequence());
-                    return;
+                            ERROR, e, "Could not encode batch %s. Giving up.", batch.sequence());
+                    dispatch(e);
+                    return true;
                 }
             }
+            attempts++;
+            if (!upload(new BufferBody(buffer), attempts)) {
+                return true;
+            }
+            if (attempts >= MAX_ATTEMPTS) {
+                client.log.print(
+                        ERROR, "Could not upload batch %s. Retries exhausted.", batch.sequence());
+                dispatch(new IOException(MAX_ATTEMPTS + " retries exhausted"));
+                return true;
+            }
+            long delay = backo.backoff(attempts - 1);
+            client.events.backingOff(batch, attempts, delay);
+            if (!client.retry(this, delay)) {
+                dispatch(new IllegalStateException("Client was shut down."));
+                return true;
+            }
+            return false;
+        }
 
-            client.log.print(ERROR, "Could not upload batch %s. Retries exhausted.", batch.sequence());
-            IOException exception = new IOException(MAX_ATTEMPTS + " retries exhausted");
-            for (Message message : batch.batch()) {
-                for (Callback callback : client.callbacks) {
-                    callback.failure(message, exception);
-                }
+        /** Releases the body, and tells waiting flushes that the batch is done with. */
+        private void finish() {
+            if (buffer != null) {
+                buffer.release();
+                buffer = null;
+            }
+            if (firstOrdinal >= 0) {
+                client.flushWatermark.done(firstOrdinal, firstOrdinal + batch.batch().size());
             }
         }
 
@@ -272,4 +1187,33 @@ public class AnalyticsClient {
             return status >= 500 && status < 600;
         }
     }
+
+    /** An upload body written from a pooled buffer, which can be written again on retries. */
+    static class BufferBody implements TypedOutput {
+        private final PooledBuffer buffer;
+
+        BufferBody(PooledBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public String fileName() {
+            return null;
+        }
+
+        @Override
+        public String mimeType() {
+            return "application/json; charset=UTF-8";
+        }
+
+        @Override
+        public long length() {
+            return buffer.size();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            buffer.writeTo(out);
+        }
+    }
 }
@@ -0,0 +1,141 @@
+package com.rudderstack.sdk.java.internal;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded pool of reusable buffers that batches are encoded into. Buffers come in size classes
+ * from 16 KB to 4 MB, growing by a factor of 4, and may be direct {@link ByteBuffer}s. Buffers
+ * larger than the largest class are allocated on demand and not pooled.
+ *
+ * <p>With leak detection on, the pool remembers where each outstanding buffer was acquired so that
+ * {@link #leaks()} can report buffers that were never released. It is off unless the {@code
+ * rudder.bufferPool.leakDetection} system property is {@code true}, as it is in tests.
+ */
+public final class BufferPool {
+  static final int MIN_CLASS_SIZE = 16 * 1024;
+  static final int CLASS_COUNT = 5; // 16 KB, 64 KB, 256 KB, 1 MB, 4 MB
+  private static final long DEFAULT_MAX_POOLED_BYTES = 8 * 1024 * 1024;
+  private static final boolean LEAK_DETECTION = Boolean.getBoolean("rudder.bufferPool.leakDetection");
+
+  /** Returns a heap buffer pool retaining at most 8 MB of buffers. */
+  public static BufferPool create() {
+    return create(DEFAULT_MAX_POOLED_BYTES, false);
+  }
+
+  /**
+   * Returns a buffer pool retaining at most {@code maxPooledBytes} of buffers, allocating direct
+   * buffers if {@code direct} is {@code true}.
+   */
+  public static BufferPool create(long maxPooledBytes, boolean direct) {
+    if (maxPooledBytes < 0) {
+      throw new IllegalArgumentException("maxPooledBytes must not be negative.");
+    }
+    return new BufferPool(maxPooledBytes, direct, LEAK_DETECTION);
+  }
+
+  private final long maxPooledBytes;
+  private final boolean direct;
+  private final List<ArrayDeque<ByteBuffer>> free;
+  private final Set<PooledBuffer> outstanding;
+  private long pooledBytes;
+
+  BufferPool(long maxPooledBytes, boolean direct, boolean leakDetection) {
+    this.maxPooledBytes = maxPooledBytes;
+    this.direct = direct;
+    this.free = new ArrayList<>(CLASS_COUNT);
+    for (int i = 0; i < CLASS_COUNT; i++) {
+      free.add(new ArrayDeque<ByteBuffer>());
+    }
+    this.outstanding =
+        leakDetection
+            ? Collections.newSetFromMap(new ConcurrentHashMap<PooledBuffer, Boolean>())
+            : null;
+  }
+
+  /** Returns a buffer with room for at least {@code sizeHint} bytes. */
+  PooledBuffer acquire(int sizeHint) {
+    PooledBuffer buffer = new PooledBuffer(this, allocate(sizeHint), outstanding != null);
+    if (outstanding != null) {
+      outstanding.add(buffer);
+    }
+    return buffer;
+  }
+
+  /** Returns the buffers acquired but not yet released, if leak detection is on. */
+  public List<Throwable> leaks() {
+    if (outstanding == null) {
+      return Collections.emptyList();
+    }
+    List<Throwable> leaks = new ArrayList<>();
+    for (PooledBuffer buffer : outstanding) {
+      leaks.add(buffer.acquiredAt);
+    }
+    return leaks;
+  }
+
+  /** Returns the number of bytes held by idle buffers. */
+  public synchronized long pooledBytes() {
+    return pooledBytes;
+  }
+
+  void released(PooledBuffer buffer) {
+    if (outstanding != null) {
+      outstanding.remove(buffer);
+    }
+  }
+
+  /** Returns an empty buffer with room for at least {@code capacity} bytes. */
+  ByteBuffer allocate(int capacity) {
+    int sizeClass = sizeClass(capacity);
+    if (sizeClass < 0) {
+      return newBuffer(capacity);
+    }
+    synchronized (this) {
+      ByteBuffer buffer = free.get(sizeClass).poll();
+      if (buffer != null) {
+        pooledBytes -= buffer.capacity();
+        return buffer;
+      }
+    }
+    return newBuffer(MIN_CLASS_SIZE << (2 * sizeClass));
+  }
+
+  /** Returns {@code buffer} to the pool, unless it is not of a pooled size or the pool is full. */
+  void recycle(ByteBuffer buffer) {
+    int capacity = buffer.capacity();
+    int sizeClass = sizeClass(capacity);
+    if (sizeClass < 0 || capacity != MIN_CLASS_SIZE << (2 * sizeClass)) {
+      return;
+    }
+    // Through Buffer, since ByteBuffer's covariant override does not exist on Java 8.
+    ((Buffer) buffer).clear();
+    synchronized (this) {
+      if (pooledBytes + capacity <= maxPooledBytes) {
+        free.get(sizeClass).push(buffer);
+        pooledBytes += capacity;
+      }
+    }
+  }
+
+  private ByteBuffer newBuffer(int capacity) {
+    return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+  }
+
+  /** Returns the smallest size class holding {@code capacity} bytes, or -1 if none does. */
+  static int sizeClass(int capacity) {
+    int size = MIN_CLASS_SIZE;
+    for (int i = 0; i < CLASS_COUNT; i++, size <<= 2) {
+      if (capacity <= size) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
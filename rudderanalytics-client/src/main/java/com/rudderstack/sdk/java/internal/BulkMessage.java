@@ -0,0 +1,71 @@
+package com.rudderstack.sdk.java.internal;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.rudderstack.sdk.java.messages.Message;
+
+/**
+ * Messages enqueued together, which take a single queue entry. The looper batches them as if they
+ * had been queued one by one.
+ */
+class BulkMessage implements Message {
+  final List<Message> messages;
+  /** {@link System#nanoTime()} when the messages were enqueued. */
+  final long enqueuedNanos;
+
+  BulkMessage(List<Message> messages, long enqueuedNanos) {
+    this.messages = messages;
+    this.enqueuedNanos = enqueuedNanos;
+  }
+
+  @Nonnull
+  @Override
+  public Type type() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Nonnull
+  @Override
+  public String messageId() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Nonnull
+  @Override
+  public Date timestamp() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Nullable
+  @Override
+  public Map<String, ?> context() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Nullable
+  @Override
+  public String anonymousId() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Nullable
+  @Override
+  public String userId() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Nullable
+  @Override
+  public Map<String, Object> integrations() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String toString() {
+    return "BulkMessage{" + messages.size() + " messages}";
+  }
+}
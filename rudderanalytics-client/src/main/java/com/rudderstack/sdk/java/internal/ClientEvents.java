@@ -0,0 +1,64 @@
+package com.rudderstack.sdk.java.internal;
+
+import com.rudderstack.sdk.java.messages.Batch;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Receives the events of a client's delivery pipeline, for profilers such as Java Flight Recorder.
+ *
+ * <p>The methods do nothing by default, and a client only uses another implementation if one is
+ * registered as a {@link ServiceLoader} provider of this class, such as the one in the {@code
+ * rudderanalytics-jfr} module. Begin and end calls for the same batch are made on the same thread,
+ * in pairs.
+ */
+public abstract class ClientEvents {
+  /** Events that are discarded. */
+  public static final ClientEvents NONE = new ClientEvents() {};
+
+  /** Returns the first registered provider, or {@link #NONE} if there is none that loads. */
+  static ClientEvents load() {
+    try {
+      Iterator<ClientEvents> providers =
+          ServiceLoader.load(ClientEvents.class, ClientEvents.class.getClassLoader()).iterator();
+      if (providers.hasNext()) {
+        return providers.next();
+      }
+    } catch (ServiceConfigurationError | LinkageError ignored) {
+      // A provider that cannot run on this JVM, such as JFR events before Java 11.
+    }
+    return NONE;
+  }
+
+  /** Called before {@code batch} is encoded. */
+  public void beginEncode(Batch batch) {}
+
+  /** Called once {@code batch} is encoded into {@code bytes}, or with -1 if encoding failed. */
+  public void endEncode(Batch batch, int bytes) {}
+
+  /** Called before an attempt to upload {@code batch}, numbered from 1. */
+  public void beginUpload(Batch batch, int attempt) {}
+
+  /**
+   * Called after an attempt to upload {@code batch}, with the HTTP status of the response, or -1
+   * if there was none.
+   */
+  public void endUpload(Batch batch, int attempt, int status) {}
+
+  /**
+   * Called when the upload of {@code batch} is retried after {@code delayMillis}, following a
+   * failed attempt.
+   */
+  public void backingOff(Batch batch, int attempt, long delayMillis) {}
+
+  /** Called when {@code count} messages are dropped before being uploaded. */
+  public void messagesDropped(String cause, int count) {}
+
+  /**
+   * Called when a flush is queued, and whether the caller waits for it. Flushes joining one that is
+   * already queued are not reported.
+   */
+  public void flushRequested(boolean awaited) {}
+}
@@ -0,0 +1,113 @@
+package com.rudderstack.sdk.java.internal;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms of a client's delivery pipeline, from enqueue to acknowledgement.
+ *
+ * <p>Counters are {@link LongAdder}s and histograms use fixed buckets, so recording costs a few
+ * uncontended increments and nothing is allocated; the metrics are always on. Read them with
+ * {@code RudderAnalytics#metrics()}, or over JMX once registered with {@code
+ * RudderAnalytics.Builder#jmx}.
+ */
+public final class ClientMetrics implements ClientMetricsMXBean {
+  final LongAdder messagesEnqueued = new LongAdder();
+  final LongAdder messagesSampledOut = new LongAdder();
+  final LongAdder messagesFiltered = new LongAdder();
+  final LongAdder duplicatesSuppressed = new LongAdder();
+  final LongAdder messagesAggregated = new LongAdder();
+  final LongAdder batchesUploaded = new LongAdder();
+  final LongAdder batchesFailed = new LongAdder();
+  final LongAdder retriesNetwork = new LongAdder();
+  final LongAdder retriesServerError = new LongAdder();
+  final LongAdder retriesRateLimited = new LongAdder();
+  final Histogram batchMessages = new Histogram();
+  final Histogram batchBytes = new Histogram();
+  final Histogram uploadLatencyMicros = new Histogram();
+  final Histogram callbackLatencyMicros = new Histogram();
+  final Histogram ackLatencyMillis = new Histogram();
+  /** Messages on the queue; a bulk enqueue is one queue entry but counts all its messages. */
+  final LongAdder queueDepth = new LongAdder();
+
+  ClientMetrics() {}
+
+  @Override
+  public long getMessagesEnqueued() {
+    return messagesEnqueued.sum();
+  }
+
+  @Override
+  public long getQueueDepth() {
+    return queueDepth.sum();
+  }
+
+  @Override
+  public long getMessagesSampledOut() {
+    return messagesSampledOut.sum();
+  }
+
+  @Override
+  public long getMessagesFiltered() {
+    return messagesFiltered.sum();
+  }
+
+  @Override
+  public long getDuplicatesSuppressed() {
+    return duplicatesSuppressed.sum();
+  }
+
+  @Override
+  public long getMessagesAggregated() {
+    return messagesAggregated.sum();
+  }
+
+  @Override
+  public long getBatchesUploaded() {
+    return batchesUploaded.sum();
+  }
+
+  @Override
+  public long getBatchesFailed() {
+    return batchesFailed.sum();
+  }
+
+  @Override
+  public long getRetriesNetwork() {
+    return retriesNetwork.sum();
+  }
+
+  @Override
+  public long getRetriesServerError() {
+    return retriesServerError.sum();
+  }
+
+  @Override
+  public long getRetriesRateLimited() {
+    return retriesRateLimited.sum();
+  }
+
+  @Override
+  public HistogramSnapshot getBatchMessages() {
+    return batchMessages.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getBatchBytes() {
+    return batchBytes.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getUploadLatencyMicros() {
+    return uploadLatencyMicros.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getCallbackLatencyMicros() {
+    return callbackLatencyMicros.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getAckLatencyMillis() {
+    return ackLatencyMillis.snapshot();
+  }
+}
@@ -0,0 +1,46 @@
+package com.rudderstack.sdk.java.internal;
+
+/**
+ * The metrics of a client, as exposed over JMX. Counters are totals since the client was built.
+ *
+ * @see ClientMetrics
+ */
+public interface ClientMetricsMXBean {
+  long getMessagesEnqueued();
+
+  /** Messages waiting on the queue for the looper to batch them. */
+  long getQueueDepth();
+
+  long getMessagesSampledOut();
+
+  long getMessagesFiltered();
+
+  long getDuplicatesSuppressed();
+
+  long getMessagesAggregated();
+
+  long getBatchesUploaded();
+
+  long getBatchesFailed();
+
+  long getRetriesNetwork();
+
+  long getRetriesServerError();
+
+  long getRetriesRateLimited();
+
+  /** Messages per batch. */
+  HistogramSnapshot getBatchMessages();
+
+  /** Encoded bytes per batch. */
+  HistogramSnapshot getBatchBytes();
+
+  /** Microseconds per upload attempt. */
+  HistogramSnapshot getUploadLatencyMicros();
+
+  /** Microseconds spent running callbacks and completing futures per batch. */
+  HistogramSnapshot getCallbackLatencyMicros();
+
+  /** Milliseconds from when each message was enqueued until its batch is done. */
+  HistogramSnapshot getAckLatencyMillis();
+}
@@ -0,0 +1,151 @@
+package com.rudderstack.sdk.java.internal;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed set of threads shared by many clients, each submitting tasks through its own {@link
+ * #lane()}. Threads serve the lanes with pending tasks in turn, one task at a time, so that a client
+ * with a long backlog delays the others by at most one task per thread. A task that throws is
+ * reported to the thread's {@link Thread.UncaughtExceptionHandler}, and the thread carries on.
+ */
+public final class FairExecutor {
+  private final BlockingQueue<Lane> ready = new LinkedBlockingQueue<>();
+  private final Lane stop = new Lane();
+  private volatile boolean shutdown;
+
+  /** Returns an executor running tasks on {@code threads} threads. */
+  public static FairExecutor create(int threads, ThreadFactory threadFactory) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads must be positive.");
+    }
+    return new FairExecutor(threads, threadFactory);
+  }
+
+  private FairExecutor(int threads, ThreadFactory threadFactory) {
+    Runnable worker =
+        new Runnable() {
+          @Override
+          public void run() {
+            work();
+          }
+        };
+    for (int i = 0; i < threads; i++) {
+      threadFactory.newThread(worker).start();
+    }
+  }
+
+  /**
+   * Returns a new lane. Shutting a lane down stops it from accepting tasks, but lets those it
+   * already has run; it does not affect other lanes.
+   */
+  public ExecutorService lane() {
+    return new Lane();
+  }
+
+  /** Stops accepting tasks, and stops the threads once the tasks already submitted have run. */
+  public void shutdown() {
+    shutdown = true;
+    ready.add(stop);
+  }
+
+  private void work() {
+    try {
+      while (true) {
+        Lane lane = ready.take();
+        if (lane == stop) {
+          // Pass it on to the other threads, after the lanes still behind it.
+          boolean done = ready.isEmpty();
+          ready.add(stop);
+          if (done) {
+            return;
+          }
+          continue;
+        }
+        Runnable task = lane.tasks.poll();
+        lane.active.incrementAndGet();
+        if (lane.pending.decrementAndGet() > 0) {
+          ready.add(lane); // Back of the line.
+        }
+        try {
+          task.run();
+        } catch (Throwable e) {
+          // Tasks submitted through ExecutorService#submit capture their own failures. Report the
+          // others without losing the thread, which every lane depends on.
+          Thread thread = Thread.currentThread();
+          thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        } finally {
+          lane.active.decrementAndGet();
+        }
+      }
+    } catch (InterruptedException ignored) {
+      // Stop.
+    }
+  }
+
+  private final class Lane extends AbstractExecutorService {
+    final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    /** Tasks submitted but not started; the lane is in {@link #ready} while it is positive. */
+    final AtomicInteger pending = new AtomicInteger();
+    final AtomicInteger active = new AtomicInteger();
+    volatile boolean laneShutdown;
+
+    @Override
+    public void execute(Runnable task) {
+      if (task == null) {
+        throw new NullPointerException("Null task");
+      }
+      if (laneShutdown || shutdown) {
+        throw new RejectedExecutionException("Executor is shut down.");
+      }
+      tasks.add(task);
+      if (pending.getAndIncrement() == 0) {
+        ready.add(this);
+      }
+    }
+
+    @Override
+    public void shutdown() {
+      laneShutdown = true;
+    }
+
+    /** Same as {@link #shutdown()}: tasks already submitted still run. */
+    @Override
+    public List<Runnable> shutdownNow() {
+      laneShutdown = true;
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return laneShutdown || shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return isShutdown() && pending.get() == 0 && active.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      while (!isTerminated()) {
+        if (System.nanoTime() - deadline >= 0) {
+          return false;
+        }
+        Thread.sleep(10);
+      }
+      return true;
+    }
+  }
+}
@@ -2,15 +2,24 @@ package com.rudderstack.sdk.java.internal;
 
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.rudderstack.sdk.java.messages.Message;
 
+/**
+ * Tells the looper to upload the messages it holds. A flush that is waited on carries the future
+ * to complete once every message queued before it is done.
+ */
 class FlushMessage implements Message {
-  static final FlushMessage POISON = new FlushMessage();
+  static final FlushMessage POISON = new FlushMessage(null);
 
-  private FlushMessage() {}
+  final CompletableFuture<Void> flushed;
+
+  FlushMessage(CompletableFuture<Void> flushed) {
+    this.flushed = flushed;
+  }
 
   @Nonnull
   @Override
@@ -0,0 +1,116 @@
+package com.rudderstack.sdk.java.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Tracks which queued messages are done, to complete flushes that wait for them.
+ *
+ * <p>The looper numbers messages in the order it batches them, so each batch covers a range of
+ * ordinals. The watermark is the ordinal below which every batch has been uploaded or given up on.
+ * Batches finishing out of order are held as ranges until the gap below them closes. A flush waits
+ * for the watermark to reach the number of messages batched before it, which keeps the cost per
+ * flush rather than per message.
+ */
+final class FlushWatermark {
+  private final Executor executor;
+  private final TreeMap<Long, Long> pending = new TreeMap<>();
+  private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+  private long watermark;
+
+  /** @param executor runs the completion of flush futures, or {@code null} to complete inline */
+  FlushWatermark(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Completes {@code flushed} once all messages below {@code target} are done. Targets must be
+   * awaited in increasing order.
+   */
+  void await(long target, CompletableFuture<Void> flushed) {
+    synchronized (this) {
+      if (watermark < target) {
+        waiters.add(new Waiter(target, flushed));
+        return;
+      }
+    }
+    complete(Collections.singletonList(flushed));
+  }
+
+  /** Marks the messages from {@code start} up to, but excluding, {@code end} as done. */
+  void done(long start, long end) {
+    List<CompletableFuture<Void>> ready = null;
+    synchronized (this) {
+      if (start != watermark) {
+        pending.put(start, end);
+        return;
+      }
+      watermark = end;
+      for (Map.Entry<Long, Long> next = pending.firstEntry();
+          next != null && next.getKey() == watermark;
+          next = pending.firstEntry()) {
+        watermark = next.getValue();
+        pending.pollFirstEntry();
+      }
+      while (!waiters.isEmpty() && waiters.peek().target <= watermark) {
+        if (ready == null) {
+          ready = new ArrayList<>();
+        }
+        ready.add(waiters.poll().flushed);
+      }
+    }
+    if (ready != null) {
+      complete(ready);
+    }
+  }
+
+  /** Fails every waiting flush with {@code cause}. */
+  void fail(Throwable cause) {
+    List<Waiter> failed;
+    synchronized (this) {
+      failed = new ArrayList<>(waiters);
+      waiters.clear();
+    }
+    for (Waiter waiter : failed) {
+      waiter.flushed.completeExceptionally(cause);
+    }
+  }
+
+  private void complete(final List<CompletableFuture<Void>> flushes) {
+    Runnable completion =
+        new Runnable() {
+          @Override
+          public void run() {
+            for (CompletableFuture<Void> flushed : flushes) {
+              flushed.complete(null);
+            }
+          }
+        };
+    if (executor == null) {
+      completion.run();
+      return;
+    }
+    try {
+      executor.execute(completion);
+    } catch (RejectedExecutionException e) {
+      completion.run();
+    }
+  }
+
+  private static final class Waiter {
+    final long target;
+    final CompletableFuture<Void> flushed;
+
+    Waiter(long target, CompletableFuture<Void> flushed) {
+      this.target = target;
+      this.flushed = flushed;
+    }
+  }
+}
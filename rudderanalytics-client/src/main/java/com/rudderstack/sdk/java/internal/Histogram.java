@@ -0,0 +1,67 @@
+package com.rudderstack.sdk.java.internal;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values in fixed power-of-two buckets, recorded with striped
+ * counters so that concurrent writers do not contend.
+ *
+ * <p>Bucket {@code i} counts values below {@code 2^i} and at least {@code 2^(i-1)}, so percentiles
+ * are accurate to within a factor of two, which is enough to tell a healthy pipeline from a stuck
+ * one.
+ */
+public final class Histogram {
+  static final int BUCKETS = 48;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+  private final LongAdder sum = new LongAdder();
+
+  Histogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /** Records {@code value}, clamping negative values to zero. */
+  void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value))].increment();
+    sum.add(value);
+  }
+
+  /** Returns a point-in-time summary of the recorded values. */
+  public HistogramSnapshot snapshot() {
+    long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets[i].sum();
+      count += counts[i];
+    }
+    long sum = this.sum.sum();
+    return new HistogramSnapshot(
+        count,
+        count == 0 ? 0 : (double) sum / count,
+        percentile(counts, count, 0.5),
+        percentile(counts, count, 0.9),
+        percentile(counts, count, 0.99),
+        percentile(counts, count, 1));
+  }
+
+  /** Returns the upper bound of the bucket holding the value at {@code quantile}. */
+  private static long percentile(long[] counts, long count, double quantile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(quantile * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return i == 0 ? 0 : (1L << i) - 1;
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+}
@@ -0,0 +1,82 @@
+package com.rudderstack.sdk.java.internal;
+
+import com.rudderstack.sdk.java.DeliveryResult;
+import com.rudderstack.sdk.java.messages.Message;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A queued message, stamped with when it was enqueued, along with the write key to send it with and
+ * the future of its {@link DeliveryResult}, if any. The looper unwraps it.
+ */
+class PendingMessage implements Message {
+  final Message message;
+  /** The write key to send the message with, or {@code null} for the client's. */
+  final String writeKey;
+  /** The future to complete, or {@code null} if none is waiting. */
+  final CompletableFuture<DeliveryResult> result;
+  /** {@link System#nanoTime()} when the message was enqueued, to measure its ack latency. */
+  final long enqueuedNanos;
+
+  PendingMessage(
+      Message message,
+      String writeKey,
+      CompletableFuture<DeliveryResult> result,
+      long enqueuedNanos) {
+    this.message = message;
+    this.writeKey = writeKey;
+    this.result = result;
+    this.enqueuedNanos = enqueuedNanos;
+  }
+
+  @Nonnull
+  @Override
+  public Type type() {
+    return message.type();
+  }
+
+  @Nonnull
+  @Override
+  public String messageId() {
+    return message.messageId();
+  }
+
+  @Nonnull
+  @Override
+  public Date timestamp() {
+    return message.timestamp();
+  }
+
+  @Nullable
+  @Override
+  public Map<String, ?> context() {
+    return message.context();
+  }
+
+  @Nullable
+  @Override
+  public String anonymousId() {
+    return message.anonymousId();
+  }
+
+  @Nullable
+  @Override
+  public String userId() {
+    return message.userId();
+  }
+
+  @Nullable
+  @Override
+  public Map<String, Object> integrations() {
+    return message.integrations();
+  }
+
+  @Override
+  public String toString() {
+    return "PendingMessage{" + message + "}";
+  }
+}
@@ -0,0 +1,90 @@
+package com.rudderstack.sdk.java.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * A growable output stream backed by a buffer borrowed from a {@link BufferPool}. Growing swaps in a
+ * buffer of the next size class and hands the smaller one back. Callers must {@link #release()} it
+ * exactly once, after which it must not be used.
+ */
+final class PooledBuffer extends OutputStream {
+  private static final int TRANSFER_SIZE = 8 * 1024;
+
+  private final BufferPool pool;
+  final Throwable acquiredAt;
+  private ByteBuffer buffer;
+
+  PooledBuffer(BufferPool pool, ByteBuffer buffer, boolean trackAcquisition) {
+    this.pool = pool;
+    this.buffer = buffer;
+    this.acquiredAt = trackAcquisition ? new Throwable("Buffer acquired here") : null;
+  }
+
+  @Override
+  public void write(int b) {
+    ensureCapacity(1).put((byte) b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    ensureCapacity(len).put(b, off, len);
+  }
+
+  /** Returns the number of bytes written. */
+  int size() {
+    return checkNotReleased().position();
+  }
+
+  /** Writes the bytes written so far to {@code out}. May be called any number of times. */
+  void writeTo(OutputStream out) throws IOException {
+    ByteBuffer buffer = checkNotReleased();
+    if (buffer.hasArray()) {
+      out.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+      return;
+    }
+    ByteBuffer source = buffer.duplicate();
+    // Through Buffer, since ByteBuffer's covariant override does not exist on Java 8.
+    ((Buffer) source).flip();
+    byte[] transfer = new byte[Math.min(TRANSFER_SIZE, source.remaining())];
+    while (source.hasRemaining()) {
+      int count = Math.min(transfer.length, source.remaining());
+      source.get(transfer, 0, count);
+      out.write(transfer, 0, count);
+    }
+  }
+
+  /** Hands the underlying buffer back to the pool. */
+  void release() {
+    ByteBuffer buffer = checkNotReleased();
+    this.buffer = null;
+    pool.released(this);
+    pool.recycle(buffer);
+  }
+
+  private ByteBuffer ensureCapacity(int count) {
+    ByteBuffer buffer = checkNotReleased();
+    if (buffer.remaining() >= count) {
+      return buffer;
+    }
+    int required = buffer.position() + count;
+    if (required < 0) {
+      throw new OutOfMemoryError("Batch too large to buffer.");
+    }
+    ByteBuffer grown = pool.allocate(Math.max(required, buffer.capacity() * 2));
+    ((Buffer) buffer).flip();
+    grown.put(buffer);
+    pool.recycle(buffer);
+    this.buffer = grown;
+    return grown;
+  }
+
+  private ByteBuffer checkNotReleased() {
+    if (buffer == null) {
+      throw new IllegalStateException("Buffer already released.");
+    }
+    return buffer;
+  }
+}
@@ -0,0 +1,176 @@
+package com.rudderstack.sdk.java.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Hands batch uploads to the network executor, keeping at most a fixed number in flight and sharing
+ * them out between write keys by deficit round robin. Each key with uploads waiting is given, in
+ * turn, a quantum of messages proportional to its weight, and sends batches while they fit in what
+ * it has been given. A key with a long backlog then delays the others by at most one turn.
+ */
+final class UploadDispatcher {
+  /** An upload to be told, rather than dropped, if the executor rejects it. */
+  interface Rejectable {
+    void rejected(RejectedExecutionException e);
+  }
+
+  private final ExecutorService executor;
+  private final int maxInFlight;
+  private final int quantum;
+  /** Lanes with uploads waiting, the one whose turn it is first. */
+  private final ArrayDeque<Lane> active = new ArrayDeque<>();
+  private int inFlight;
+
+  /**
+   * @param maxInFlight how many uploads may run at once, or 0 for no limit
+   * @param quantum messages a lane of weight 1 may send per turn, at least the largest batch
+   */
+  UploadDispatcher(ExecutorService executor, int maxInFlight, int quantum) {
+    this.executor = executor;
+    this.maxInFlight = maxInFlight > 0 ? maxInFlight : Integer.MAX_VALUE;
+    this.quantum = quantum;
+  }
+
+  /** Returns a new lane, sending {@code weight} times as many messages per turn as weight 1. */
+  Lane lane(int weight) {
+    return new Lane(weight);
+  }
+
+  /** Queues {@code upload}, which sends {@code messages} messages, on {@code lane}. */
+  void submit(Lane lane, Runnable upload, int messages) {
+    List<Upload> ready;
+    synchronized (this) {
+      if (lane.uploads == null) {
+        lane.uploads = new ArrayDeque<>();
+      }
+      lane.uploads.add(new Upload(upload, messages));
+      if (lane.uploads.size() == 1) {
+        active.add(lane);
+      }
+      ready = poll();
+    }
+    execute(ready);
+  }
+
+  /** Returns whether {@code lane} has no uploads waiting. */
+  synchronized boolean isIdle(Lane lane) {
+    return lane.uploads == null || lane.uploads.isEmpty();
+  }
+
+  /** Hands every waiting upload to the executor, regardless of the limit. Used on shutdown. */
+  void release() {
+    List<Upload> ready = new ArrayList<>();
+    synchronized (this) {
+      for (Lane lane : active) {
+        ready.addAll(lane.uploads);
+        lane.uploads.clear();
+        lane.deficit = 0;
+        lane.inTurn = false;
+      }
+      active.clear();
+      inFlight += ready.size();
+    }
+    execute(ready);
+  }
+
+  private void done() {
+    List<Upload> ready;
+    synchronized (this) {
+      inFlight--;
+      ready = poll();
+    }
+    execute(ready);
+  }
+
+  /** Takes the uploads that may start now, in round robin order. Must hold the lock. */
+  private List<Upload> poll() {
+    List<Upload> ready = null;
+    Lane lane;
+    while (inFlight < maxInFlight && (lane = active.peek()) != null) {
+      if (!lane.inTurn) {
+        lane.deficit += (long) quantum * lane.weight;
+        lane.inTurn = true;
+      }
+      Upload next = lane.uploads.peek();
+      if (next.messages > lane.deficit) {
+        // Its turn is over; carry what is left over to the next one.
+        lane.inTurn = false;
+        active.add(active.poll());
+        continue;
+      }
+      lane.uploads.poll();
+      lane.deficit -= next.messages;
+      inFlight++;
+      if (ready == null) {
+        ready = new ArrayList<>(1);
+      }
+      ready.add(next);
+      if (lane.uploads.isEmpty()) {
+        lane.deficit = 0;
+        lane.inTurn = false;
+        active.poll();
+      }
+    }
+    return ready;
+  }
+
+  private void execute(List<Upload> ready) {
+    if (ready == null) {
+      return;
+    }
+    RejectedExecutionException rejected = null;
+    for (int i = 0; i < ready.size(); i++) {
+      Upload upload = ready.get(i);
+      try {
+        executor.submit(upload);
+      } catch (RejectedExecutionException e) {
+        synchronized (this) {
+          inFlight--;
+        }
+        if (upload.upload instanceof Rejectable) {
+          ((Rejectable) upload.upload).rejected(e);
+        } else {
+          rejected = e;
+        }
+      }
+    }
+    if (rejected != null) {
+      throw rejected;
+    }
+  }
+
+  /** The uploads of one write key. Its fields are guarded by the dispatcher. */
+  static final class Lane {
+    final int weight;
+    ArrayDeque<Upload> uploads;
+    long deficit;
+    boolean inTurn;
+
+    Lane(int weight) {
+      this.weight = weight;
+    }
+  }
+
+  private final class Upload implements Runnable {
+    final Runnable upload;
+    final int messages;
+
+    Upload(Runnable upload, int messages) {
+      this.upload = upload;
+      this.messages = messages;
+    }
+
+    @Override
+    public void run() {
+      try {
+        upload.run();
+      } finally {
+        done();
+      }
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.rudderstack.sdk.java.messages;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.rudderstack.sdk.java.gson.ISO8601DateAdapter;
+
+import java.util.AbstractMap;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable map whose JSON encoding is computed once, when it is created, and spliced verbatim
+ * into every batch or message it is part of.
+ *
+ * <p>Use this for context that is the same on every message, so that it is not re-encoded on every
+ * upload:
+ *
+ * <pre>{@code
+ * Map<String, ?> context = EncodedMap.of(staticContext);
+ * analytics.enqueue(TrackMessage.builder("Item Purchased").userId("f4ca124298").context(context));
+ * }</pre>
+ *
+ * <p>{@link MessageBuilder#context(Map)} keeps an {@link EncodedMap} as is instead of copying it.
+ *
+ * <p>The map is always encoded with Gson, with dates in ISO 8601 as the default codec writes them,
+ * even when another {@link com.rudderstack.sdk.java.http.JsonCodec} is configured. Codecs write
+ * {@link #json()} verbatim in place of the map, so a value the configured codec would write
+ * differently is written the Gson way. The Jackson codec writes every value type it supports as
+ * Gson does.
+ */
+public final class EncodedMap extends AbstractMap<String, Object> {
+  private static final Gson GSON =
+      new GsonBuilder() //
+          .registerTypeAdapter(Date.class, new ISO8601DateAdapter()) //
+          .create();
+
+  /**
+   * Returns an {@link EncodedMap} with the same entries as {@code map}, encoding it if required.
+   */
+  public static EncodedMap of(Map<String, ?> map) {
+    if (map == null) {
+      throw new NullPointerException("Null map");
+    }
+    if (map instanceof EncodedMap) {
+      return (EncodedMap) map;
+    }
+    return new EncodedMap(ImmutableMap.copyOf(map));
+  }
+
+  private final Map<String, ?> delegate;
+  private final String json;
+
+  private EncodedMap(Map<String, ?> delegate) {
+    this.delegate = delegate;
+    this.json = GSON.toJson(delegate);
+  }
+
+  /** Returns the JSON encoding of this map. */
+  public String json() {
+    return json;
+  }
+
+  @Override
+  public Object get(Object key) {
+    return delegate.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return delegate.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return (Set<Entry<String, Object>>) (Set<?>) delegate.entrySet();
+  }
+}
@@ -69,7 +69,7 @@ public abstract class GroupMessage implements Message {
       if (traits == null) {
         throw new NullPointerException("Null traits");
       }
-      this.traits = ImmutableMap.copyOf(traits);
+      this.traits = copy(traits);
       return this;
     }
 
@@ -86,6 +86,11 @@ public abstract class GroupMessage implements Message {
           type, messageId, timestamp, context, anonymousId, userId, integrations, groupId, traits);
     }
 
+    @Override
+    void intern(StringCache cache) {
+      traits = cache.internKeys(traits);
+    }
+
     @Override
     Builder self() {
       return this;
@@ -51,10 +51,15 @@ public abstract class IdentifyMessage implements Message {
       if (traits == null) {
         throw new NullPointerException("Null traits");
       }
-      this.traits = ImmutableMap.copyOf(traits);
+      this.traits = copy(traits);
       return this;
     }
 
+    /** Returns the traits set so far, or {@code null}. */
+    public Map<String, ?> traits() {
+      return traits;
+    }
+
     @Override
     protected IdentifyMessage realBuild(
         Type type,
@@ -72,6 +77,11 @@ public abstract class IdentifyMessage implements Message {
           type, messageId, timestamp, context, anonymousId, userId, integrations, traits);
     }
 
+    @Override
+    void intern(StringCache cache) {
+      traits = cache.internKeys(traits);
+    }
+
     @Override
     Builder self() {
       return this;
@@ -13,7 +13,8 @@ import javax.annotation.Nullable;
  * {@link TrackMessage#properties()}, {@link ScreenMessage#properties()}, {@link
  * IdentifyMessage#traits()}, or {@link GroupMessage#traits()}, we'll make an internal copy of the
  * map provided. If you use <a href="https://github.com/google/guava">Guava</a>, we'll use it's
- * {@code ImmutableMap#copyOf} methods instead.
+ * {@code ImmutableMap#copyOf} methods instead. Builders set to {@link MessageBuilder#adoptMaps()}
+ * skip the copy and hold the maps they are given.
  *
  * <p>There are a few limitations to be aware of when using Guava — mainly that null keys or values
  * are not permitted and duplicate keys are not permitted. For more details, refer to Guava's <a
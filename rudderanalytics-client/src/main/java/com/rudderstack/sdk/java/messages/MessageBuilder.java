@@ -21,6 +21,8 @@ public abstract class MessageBuilder<T extends Message, V extends MessageBuilder
   private String anonymousId;
   private String userId;
   private Map<String, Object> integrations;
+  private boolean adoptMaps;
+  private boolean integrationsShared;
 
   // Hidden from Public API.
   MessageBuilder(Message.Type type) {
@@ -41,6 +43,25 @@ public abstract class MessageBuilder<T extends Message, V extends MessageBuilder
     return string == null || string.trim().length() == 0;
   }
 
+  /**
+   * Make this builder take ownership of the maps passed to it, instead of making a defensive copy
+   * of each one. Applies to maps passed after this call, including those passed to {@code
+   * properties}, {@code traits}, {@link #context} and {@link #integrationOptions}, and the built
+   * message holds them as is.
+   *
+   * <p>In return, the caller must not modify a map once it has been passed in, neither before nor
+   * after the message is enqueued.
+   */
+  public V adoptMaps() {
+    this.adoptMaps = true;
+    return self();
+  }
+
+  /** Returns {@code map} itself if this builder adopts maps, or an immutable copy otherwise. */
+  <K, W> Map<K, W> copy(Map<K, W> map) {
+    return adoptMaps ? map : ImmutableMap.copyOf(map);
+  }
+
   /**
    * The Message ID is a unique identifier for each message. If not provided, one will be generated
    * for you. This ID is typically used for deduping - messages with the same IDs as previous events
@@ -91,12 +112,15 @@ public abstract class MessageBuilder<T extends Message, V extends MessageBuilder
    * automatically, depending on the library you send data from. Some keys, such as location and
    * speed need to be manually entered.
    *
+   * <p>Context that is the same on every message can be passed as an {@link EncodedMap}, which is
+   * neither copied nor re-encoded.
+   *
    */
   public V context(Map<String, ?> context) {
     if (context == null) {
       throw new NullPointerException("Null context");
     }
-    this.context = ImmutableMap.copyOf(context);
+    this.context = context instanceof EncodedMap ? context : copy(context);
     return self();
   }
 
@@ -148,10 +172,7 @@ public abstract class MessageBuilder<T extends Message, V extends MessageBuilder
     if (isNullOrEmpty(key)) {
       throw new IllegalArgumentException("Key cannot be null or empty.");
     }
-    if (integrations == null) {
-      integrations = new LinkedHashMap<>();
-    }
-    integrations.put(key, enable);
+    mutableIntegrations().put(key, enable);
     return self();
   }
 
@@ -164,11 +185,22 @@ public abstract class MessageBuilder<T extends Message, V extends MessageBuilder
     if (isNullOrEmpty(key)) {
       throw new IllegalArgumentException("Key cannot be null or empty.");
     }
+    mutableIntegrations().put(key, copy(options));
+    return self();
+  }
+
+  /**
+   * Returns the integrations map to modify, copying it first if a message built by this builder
+   * adopted it.
+   */
+  private Map<String, Object> mutableIntegrations() {
     if (integrations == null) {
       integrations = new LinkedHashMap<>();
+    } else if (integrationsShared) {
+      integrations = new LinkedHashMap<>(integrations);
+      integrationsShared = false;
     }
-    integrations.put(key, ImmutableMap.copyOf(options));
-    return self();
+    return integrations;
   }
 
   protected abstract T realBuild(
@@ -182,6 +214,9 @@ public abstract class MessageBuilder<T extends Message, V extends MessageBuilder
 
   abstract V self();
 
+  /** Replaces the strings this builder holds with their canonical instances from {@code cache}. */
+  void intern(StringCache cache) {}
+
   /**
    * Create a {@link Message} instance.
    *
@@ -205,6 +240,9 @@ public abstract class MessageBuilder<T extends Message, V extends MessageBuilder
     Map<String, Object> integrations;
     if (this.integrations == null) {
       integrations = Collections.emptyMap();
+    } else if (adoptMaps) {
+      integrations = this.integrations;
+      integrationsShared = true;
     } else {
       integrations = ImmutableMap.copyOf(this.integrations);
     }
@@ -216,4 +254,29 @@ public abstract class MessageBuilder<T extends Message, V extends MessageBuilder
   public Message.Type type() {
     return type;
   }
+
+  /** Returns the message ID set so far, or {@code null} if one will be generated. */
+  public String messageId() {
+    return messageId;
+  }
+
+  /** Returns the integrations set so far, or {@code null}. */
+  public Map<String, ?> integrations() {
+    return integrations == null ? null : Collections.unmodifiableMap(integrations);
+  }
+
+  /** Returns the context set so far, or {@code null}. */
+  public Map<String, ?> context() {
+    return context;
+  }
+
+  /** Returns the anonymous ID set so far, or {@code null}. */
+  public String anonymousId() {
+    return anonymousId;
+  }
+
+  /** Returns the user ID set so far, or {@code null}. */
+  public String userId() {
+    return userId;
+  }
 }
@@ -64,10 +64,16 @@ public abstract class PageMessage implements Message {
       if (properties == null) {
         throw new NullPointerException("Null properties");
       }
-      this.properties = ImmutableMap.copyOf(properties);
+      this.properties = copy(properties);
       return this;
     }
 
+    @Override
+    void intern(StringCache cache) {
+      name = cache.intern(name);
+      properties = cache.internKeys(properties);
+    }
+
     @Override
     Builder self() {
       return this;
@@ -0,0 +1,138 @@
+package com.rudderstack.sdk.java.messages;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded cache of event names and property keys. Repeated strings share one canonical
+ * instance, and codecs can attach an encoded form to each cached string so that it is escaped once
+ * rather than on every upload.
+ *
+ * <p>The cache holds at most {@code maxSize} strings. Once full, it keeps the strings it already
+ * holds and passes any new ones through untouched, so a burst of unique names cannot grow it.
+ *
+ * <pre>{@code
+ * StringCache cache = new StringCache(1024);
+ * RudderAnalytics analytics = RudderAnalytics.builder(writeKey, dataPlaneUrl)
+ *     .stringCache(cache)
+ *     .codec(new JacksonCodec(cache))
+ *     .build();
+ * }</pre>
+ */
+public final class StringCache {
+  /** Computes the encoded form a codec attaches to a cached string. */
+  public interface Encoder<T> {
+    T encode(String value);
+  }
+
+  private final int maxSize;
+  private final ConcurrentMap<String, Entry> entries;
+  private final AtomicInteger size = new AtomicInteger();
+
+  public StringCache(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must not be less than 1.");
+    }
+    this.maxSize = maxSize;
+    this.entries = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+  }
+
+  /**
+   * Returns the canonical instance of {@code value}, adding it to the cache if there is room. Once
+   * the cache is full, unknown strings are returned as is.
+   */
+  public String intern(String value) {
+    Entry entry = entries.get(value);
+    if (entry != null) {
+      return entry.value;
+    }
+    // Take a slot before adding, so that racing threads cannot overfill the cache.
+    int current;
+    do {
+      current = size.get();
+      if (current >= maxSize) {
+        return value;
+      }
+    } while (!size.compareAndSet(current, current + 1));
+    Entry existing = entries.putIfAbsent(value, new Entry(value));
+    if (existing != null) {
+      size.decrementAndGet();
+      return existing.value;
+    }
+    return value;
+  }
+
+  /**
+   * Returns the form {@code encoder} computes for {@code value}, computing it at most once per
+   * cached string, or {@code null} if {@code value} is not cached. A cache is meant to be used by a
+   * single codec, since each string holds one encoded form.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T encoded(String value, Encoder<T> encoder) {
+    Entry entry = entries.get(value);
+    if (entry == null) {
+      return null;
+    }
+    Object encoded = entry.encoded;
+    if (encoded == null) {
+      // Racing threads compute equal values, so the last write winning is harmless.
+      encoded = encoder.encode(entry.value);
+      entry.encoded = encoded;
+    }
+    return (T) encoded;
+  }
+
+  /** Interns the event name or page name and the property or trait keys held by a builder. */
+  public void intern(MessageBuilder builder) {
+    builder.intern(this);
+  }
+
+  /** Returns the number of cached strings. */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * Returns {@code map} if all of its keys are already canonical, or an immutable copy keyed by
+   * canonical instances otherwise. Each key is interned once, and the copy is made in the same pass.
+   */
+  public <V> Map<String, V> internKeys(Map<String, V> map) {
+    if (map == null) {
+      return null;
+    }
+    Map<String, V> interned = null;
+    int index = 0;
+    for (Map.Entry<String, V> entry : map.entrySet()) {
+      String key = entry.getKey();
+      String canonical = intern(key);
+      if (interned == null && canonical != key) {
+        // Copy the keys seen so far, which were all canonical, and carry on from there.
+        interned = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+        Iterator<Map.Entry<String, V>> seen = map.entrySet().iterator();
+        for (int i = 0; i < index; i++) {
+          Map.Entry<String, V> previous = seen.next();
+          interned.put(previous.getKey(), previous.getValue());
+        }
+      }
+      if (interned != null) {
+        interned.put(canonical, entry.getValue());
+      }
+      index++;
+    }
+    return interned == null ? map : Collections.unmodifiableMap(interned);
+  }
+
+  private static final class Entry {
+    final String value;
+    volatile Object encoded;
+
+    Entry(String value) {
+      this.value = value;
+    }
+  }
+}
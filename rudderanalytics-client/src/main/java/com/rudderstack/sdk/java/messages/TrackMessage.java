@@ -3,8 +3,10 @@ package com.rudderstack.sdk.java.messages;
 import com.google.auto.value.AutoValue;
 import com.rudderstack.sdk.java.gson.AutoGson;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.Map;
+import java.util.UUID;
 import javax.annotation.Nullable;
 
 /**
@@ -28,6 +30,41 @@ public abstract class TrackMessage implements Message {
     return new Builder(event);
   }
 
+  /**
+   * Creates a track message without going through a {@link Builder}, with a generated message ID
+   * and the current time as its timestamp. {@code properties} may be null, and is held as is like
+   * with {@link MessageBuilder#adoptMaps()}, so it must not be modified afterwards.
+   *
+   * @throws IllegalArgumentException if the userId or event name is null or empty
+   */
+  public static TrackMessage create(String userId, String event, Map<String, ?> properties) {
+    return create(userId, event, properties, null);
+  }
+
+  /**
+   * Like {@link #create(String, String, Map)}, with a context that is held as is, or {@code
+   * null}.
+   */
+  public static TrackMessage create(
+      String userId, String event, Map<String, ?> properties, Map<String, ?> context) {
+    if (MessageBuilder.isNullOrEmpty(userId)) {
+      throw new IllegalArgumentException("userId cannot be null or empty.");
+    }
+    if (MessageBuilder.isNullOrEmpty(event)) {
+      throw new IllegalArgumentException("event cannot be null or empty.");
+    }
+    return new AutoValue_TrackMessage(
+        Type.track,
+        UUID.randomUUID().toString(),
+        new Date(),
+        context,
+        null,
+        userId,
+        Collections.<String, Object>emptyMap(),
+        event,
+        properties);
+  }
+
   public abstract String event();
 
   @Nullable
@@ -64,10 +101,21 @@ public abstract class TrackMessage implements Message {
       if (properties == null) {
         throw new NullPointerException("Null properties");
       }
-      this.properties = ImmutableMap.copyOf(properties);
+      this.properties = copy(properties);
       return this;
     }
 
+    /** Returns the event name. */
+    public String event() {
+      return event;
+    }
+
+    @Override
+    void intern(StringCache cache) {
+      event = cache.intern(event);
+      properties = cache.internKeys(properties);
+    }
+
     @Override
     Builder self() {
       return this;
@@ -0,0 +1,211 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.rudderstack.sdk.java.messages.IdentifyMessage;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import retrofit.client.Client;
+import retrofit.client.Header;
+import retrofit.client.Request;
+import retrofit.client.Response;
+import retrofit.mime.TypedByteArray;
+
+public class AggregatorTest {
+  @Test
+  public void rollsUpEventsPerUserAndDimensions() {
+    Aggregator aggregator =
+        Aggregator.builder().event("Request Served", "durationMs", "region").build();
+    Map<String, ?> context = Collections.singletonMap("ip", "10.0.0.1");
+    Date first = new Date(1000);
+
+    assertTrue(
+        aggregator.add(served("alice", "eu", 10).context(context).timestamp(first).build()));
+    assertTrue(aggregator.add(served("alice", "eu", 20).timestamp(new Date(2000)).build()));
+    assertTrue(aggregator.add(served("alice", "us", 5).build()));
+    assertTrue(aggregator.add(served("bob", "eu", 1).build()));
+
+    Map<String, TrackMessage> rollUps = byKey(aggregator.drain());
+    assertEquals(3, rollUps.size());
+    TrackMessage alice = rollUps.get("alice/eu");
+    assertEquals("Request Served", alice.event());
+    assertEquals(properties("region", "eu", "count", 2L, "sum", 30.0), alice.properties());
+    assertEquals(first, alice.timestamp());
+    assertEquals(context, alice.context());
+    assertEquals(
+        properties("region", "us", "count", 1L, "sum", 5.0), rollUps.get("alice/us").properties());
+    assertEquals(
+        properties("region", "eu", "count", 1L, "sum", 1.0), rollUps.get("bob/eu").properties());
+  }
+
+  @Test
+  public void countsWithoutAValueProperty() {
+    Aggregator aggregator = Aggregator.builder().event("Heartbeat", null).build();
+    for (int i = 0; i < 3; i++) {
+      assertTrue(aggregator.add(TrackMessage.builder("Heartbeat").userId("alice").build()));
+    }
+
+    List<Message> rollUps = aggregator.drain();
+    assertEquals(1, rollUps.size());
+    assertEquals(properties("count", 3L), ((TrackMessage) rollUps.get(0)).properties());
+  }
+
+  @Test
+  public void passesThroughOtherMessages() {
+    Aggregator aggregator = Aggregator.builder().event("Request Served", "durationMs").build();
+
+    assertFalse(aggregator.add(TrackMessage.builder("Other").userId("alice").build()));
+    assertFalse(aggregator.add(TrackMessage.builder("Request Served").anonymousId("a").build()));
+    assertFalse(aggregator.add(IdentifyMessage.builder().userId("alice").build()));
+    assertTrue(aggregator.drain().isEmpty());
+  }
+
+  @Test
+  public void findsEveryAggregateInAFullTable() {
+    Aggregator aggregator =
+        Aggregator.builder().event("Request Served", "durationMs", "region").maxKeys(1000).build();
+    for (int round = 0; round < 3; round++) {
+      for (int user = 0; user < 1000; user++) {
+        assertTrue(aggregator.add(served("user-" + user, "eu", user).build()));
+      }
+    }
+
+    Map<String, TrackMessage> rollUps = byKey(aggregator.drain());
+    assertEquals(1000, rollUps.size());
+    for (int user = 0; user < 1000; user++) {
+      Map<String, ?> properties = rollUps.get("user-" + user + "/eu").properties();
+      assertEquals(3L, properties.get("count"));
+      assertEquals(3.0 * user, properties.get("sum"));
+    }
+  }
+
+  @Test
+  public void passesThroughNewKeysOnceFull() {
+    Aggregator aggregator =
+        Aggregator.builder().event("Request Served", "durationMs", "region").maxKeys(2).build();
+    assertTrue(aggregator.add(served("alice", "eu", 1).build()));
+    assertTrue(aggregator.add(served("bob", "eu", 1).build()));
+
+    assertFalse(aggregator.add(served("carol", "eu", 1).build()));
+    assertFalse(aggregator.add(served("alice", "us", 1).build()));
+    // Open aggregates still take their events.
+    assertTrue(aggregator.add(served("alice", "eu", 1).build()));
+    assertEquals(2, aggregator.drain().size());
+
+    // Draining frees the accumulators for the next window.
+    assertTrue(aggregator.add(served("carol", "eu", 1).build()));
+    assertTrue(aggregator.add(served("alice", "us", 1).build()));
+    assertFalse(aggregator.add(served("dave", "eu", 1).build()));
+    assertEquals(2, aggregator.drain().size());
+    assertTrue(aggregator.drain().isEmpty());
+  }
+
+  @Test
+  public void sendsRollUpsOnFlush() throws Exception {
+    RecordingClient client = new RecordingClient();
+    RudderAnalytics analytics =
+        RudderAnalytics.builder("writeKey", "http://localhost")
+            .client(client)
+            .aggregator(Aggregator.builder().event("Request Served", "durationMs").build())
+            .flushInterval(1, TimeUnit.HOURS)
+            .build();
+    try {
+      for (int i = 1; i <= 4; i++) {
+        analytics.enqueue(served("alice", "eu", i));
+      }
+      analytics.flush();
+
+      String body = client.bodies.poll(5, TimeUnit.SECONDS);
+      assertNotNull(body);
+      assertTrue(body, body.contains("\"count\":4"));
+      assertTrue(body, body.contains("\"sum\":10.0"));
+      assertNull(client.bodies.poll(100, TimeUnit.MILLISECONDS));
+    } finally {
+      analytics.shutdown();
+    }
+  }
+
+  @Test
+  public void sendsRollUpsWhenTheWindowEnds() throws Exception {
+    RecordingClient client = new RecordingClient();
+    RudderAnalytics analytics =
+        RudderAnalytics.builder("writeKey", "http://localhost")
+            .client(client)
+            .aggregator(Aggregator.builder().event("Request Served", "durationMs").build())
+            .flushInterval(1, TimeUnit.SECONDS)
+            .build();
+    try {
+      analytics.enqueue(served("alice", "eu", 1));
+      analytics.enqueue(served("alice", "eu", 2));
+
+      // The window ends after the flush interval, and the roll-up lingers for at most another.
+      String body = client.bodies.poll(5, TimeUnit.SECONDS);
+      assertNotNull(body);
+      assertTrue(body, body.contains("\"count\":2"));
+    } finally {
+      analytics.shutdown();
+    }
+  }
+
+  private static TrackMessage.Builder served(String userId, String region, int durationMs) {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("region", region);
+    properties.put("durationMs", durationMs);
+    return TrackMessage.builder("Request Served").userId(userId).properties(properties);
+  }
+
+  /** Returns roll-ups by user ID and region. */
+  private static Map<String, TrackMessage> byKey(List<Message> rollUps) {
+    Map<String, TrackMessage> byKey = new HashMap<>();
+    for (Message message : rollUps) {
+      TrackMessage track = (TrackMessage) message;
+      assertNull(byKey.put(track.userId() + "/" + track.properties().get("region"), track));
+    }
+    return byKey;
+  }
+
+  private static Map<String, Object> properties(Object... keysAndValues) {
+    Map<String, Object> properties = new LinkedHashMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      properties.put((String) keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return properties;
+  }
+
+  /** Accepts every upload, recording its body. */
+  static final class RecordingClient implements Client {
+    final BlockingQueue<String> bodies = new LinkedBlockingQueue<>();
+
+    @Override
+    public Response execute(Request request) throws IOException {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      request.getBody().writeTo(body);
+      bodies.add(body.toString("UTF-8"));
+      return new Response(
+          request.getUrl(),
+          200,
+          "OK",
+          Collections.<Header>emptyList(),
+          new TypedByteArray("application/json", "{\"response\":\"OK\"}".getBytes()));
+    }
+  }
+}
@@ -0,0 +1,236 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.rudderstack.sdk.java.gson.GsonCodec;
+import com.rudderstack.sdk.java.http.JsonCodec;
+import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.IdentifyMessage;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import retrofit.client.Client;
+import retrofit.client.Header;
+import retrofit.client.Request;
+import retrofit.client.Response;
+import retrofit.mime.TypedByteArray;
+
+/**
+ * Fails when a hot path allocates more bytes per message on the calling thread than its budget in
+ * {@code allocation-budgets.properties} for the running JDK, or for the nearest JDK it was
+ * measured on. Each path is warmed up before it is measured, so budgets reflect compiled code.
+ * Lower a budget when a change saves allocation; raise it only on purpose.
+ */
+public class AllocationBudgetTest {
+  private static final int WARMUP = 20000;
+  private static final int MEASURED = 20000;
+
+  private static com.sun.management.ThreadMXBean threads;
+  private static Properties budgets;
+  private static Map<String, Object> properties;
+  private static RudderAnalytics analytics;
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    threads = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    budgets = new Properties();
+    try (InputStream in =
+        AllocationBudgetTest.class.getResourceAsStream("/allocation-budgets.properties")) {
+      budgets.load(in);
+    }
+
+    properties = new LinkedHashMap<>();
+    properties.put("order_id", "50314b8e9bcf000000000000");
+    properties.put("total", 27.50);
+    properties.put("currency", "USD");
+    properties.put("repeat_customer", true);
+    properties.put("tags", Arrays.asList("summer", "sale"));
+
+    analytics =
+        RudderAnalytics.builder("writeKey", "http://localhost").client(new OkClient()).build();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    if (analytics != null) {
+      analytics.shutdown();
+    }
+  }
+
+  @Test
+  public void trackBuild() {
+    assertWithinBudget(
+        "track.build",
+        new Runnable() {
+          @Override
+          public void run() {
+            TrackMessage.builder("Order Completed")
+                .userId("user")
+                .properties(properties)
+                .build();
+          }
+        },
+        1);
+  }
+
+  @Test
+  public void identifyBuild() {
+    assertWithinBudget(
+        "identify.build",
+        new Runnable() {
+          @Override
+          public void run() {
+            IdentifyMessage.builder().userId("user").traits(properties).build();
+          }
+        },
+        1);
+  }
+
+  @Test
+  public void trackEnqueue() {
+    assertWithinBudget(
+        "track.enqueue",
+        new Runnable() {
+          @Override
+          public void run() {
+            analytics.enqueue(
+                TrackMessage.builder("Order Completed").userId("user").properties(properties));
+          }
+        },
+        1);
+  }
+
+  @Test
+  public void trackFastPath() {
+    assertWithinBudget(
+        "track.fastPath",
+        new Runnable() {
+          @Override
+          public void run() {
+            analytics.track("user", "Order Completed", properties);
+          }
+        },
+        1);
+  }
+
+  @Test
+  public void batchEncode() {
+    final int batchSize = 100;
+    List<Message> messages = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      messages.add(
+          TrackMessage.builder("Order Completed")
+              .userId("user-" + i)
+              .properties(properties)
+              .build());
+    }
+    final Batch batch = Batch.create(Collections.<String, Object>emptyMap(), messages);
+    final JsonCodec codec = GsonCodec.create();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+    assertWithinBudget(
+        "batch.encode",
+        new Runnable() {
+          @Override
+          public void run() {
+            out.reset();
+            try {
+              codec.encode(batch, out);
+            } catch (IOException e) {
+              throw new AssertionError(e);
+            }
+          }
+        },
+        batchSize);
+  }
+
+  /** Asserts that {@code path}, which handles {@code messages} messages, is within budget. */
+  private static void assertWithinBudget(String name, Runnable path, int messages) {
+    int running = feature(System.getProperty("java.specification.version"));
+    int jdk = nearestMeasured(name, running);
+    assumeTrue("No " + name + " budget measured on any JDK", jdk != 0);
+    long budget = Long.parseLong(budgets.getProperty(name + "." + jdk));
+    long threadId = Thread.currentThread().getId();
+    int iterations = Math.max(1, WARMUP / messages);
+    for (int i = 0; i < iterations; i++) {
+      path.run();
+    }
+
+    iterations = Math.max(1, MEASURED / messages);
+    long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < iterations; i++) {
+      path.run();
+    }
+    long perMessage =
+        (threads.getThreadAllocatedBytes(threadId) - before) / ((long) iterations * messages);
+
+    assertTrue(
+        name
+            + " allocated "
+            + perMessage
+            + " bytes per message on JDK "
+            + running
+            + ", over its budget of "
+            + budget
+            + " measured on JDK "
+            + jdk,
+        perMessage <= budget);
+  }
+
+  /** Returns the JDK closest to {@code running} with a budget for {@code name}, or 0 if none. */
+  private static int nearestMeasured(String name, int running) {
+    int nearest = 0;
+    for (String key : budgets.stringPropertyNames()) {
+      if (!key.startsWith(name + ".")) {
+        continue;
+      }
+      int jdk = feature(key.substring(name.length() + 1));
+      // On a tie, the older JDK, whose budgets tend to be the more generous.
+      if (nearest == 0
+          || Math.abs(jdk - running) < Math.abs(nearest - running)
+          || (Math.abs(jdk - running) == Math.abs(nearest - running) && jdk < nearest)) {
+        nearest = jdk;
+      }
+    }
+    return nearest;
+  }
+
+  /** Returns the feature release of a {@code java.specification.version}, 8 for "1.8". */
+  private static int feature(String version) {
+    return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+  }
+
+  /** Discards uploads. */
+  static final class OkClient implements Client {
+    @Override
+    public Response execute(Request request) {
+      return new Response(
+          request.getUrl(),
+          200,
+          "OK",
+          Collections.<Header>emptyList(),
+          new TypedByteArray("application/json", "{\"response\":\"OK\"}".getBytes()));
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class DeduplicatorTest {
+  @Test
+  public void dropsRepeatsWithinTheWindow() {
+    Deduplicator deduplicator = Deduplicator.create(100, 1, TimeUnit.HOURS);
+
+    assertTrue(deduplicator.add("a"));
+    assertTrue(deduplicator.add("b"));
+    assertFalse(deduplicator.add("a"));
+    assertFalse(deduplicator.add("b"));
+    assertTrue(deduplicator.add("c"));
+  }
+
+  @Test
+  public void forgetsIdsAfterTwoRotationsByCount() {
+    Deduplicator deduplicator = Deduplicator.create(2, 0, TimeUnit.SECONDS);
+    deduplicator.add("a");
+    deduplicator.add("b");
+
+    // The current generation is full, so "c" starts a new one and "a" moves to the previous one.
+    assertTrue(deduplicator.add("c"));
+    assertFalse(deduplicator.add("a"));
+    assertTrue(deduplicator.add("d"));
+
+    // The second rotation clears the generation holding "a".
+    assertTrue(deduplicator.add("e"));
+    assertTrue(deduplicator.add("a"));
+    assertFalse(deduplicator.add("e"));
+  }
+
+  @Test
+  public void forgetsIdsAfterTwoRotationsByTime() throws InterruptedException {
+    Deduplicator deduplicator = Deduplicator.create(100, 100, TimeUnit.MILLISECONDS);
+    assertTrue(deduplicator.add("a"));
+
+    Thread.sleep(150);
+    assertTrue(deduplicator.add("b"));
+    assertFalse(deduplicator.add("a"));
+
+    Thread.sleep(150);
+    assertTrue(deduplicator.add("c"));
+    assertTrue(deduplicator.add("a"));
+  }
+
+  @Test
+  public void admitsEachIdOnceAcrossThreads() throws InterruptedException {
+    final Deduplicator deduplicator = Deduplicator.create(100000, 1, TimeUnit.HOURS);
+    final AtomicInteger admitted = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  try {
+                    start.await();
+                  } catch (InterruptedException e) {
+                    return;
+                  }
+                  for (int i = 0; i < 10000; i++) {
+                    if (deduplicator.add("message-" + i)) {
+                      admitted.incrementAndGet();
+                    }
+                  }
+                }
+              });
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(10000, admitted.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNoMessages() {
+    Deduplicator.create(0, 1, TimeUnit.SECONDS);
+  }
+}
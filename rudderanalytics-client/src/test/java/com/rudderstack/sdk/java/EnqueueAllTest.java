@@ -0,0 +1,143 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.rudderstack.sdk.java.messages.MessageBuilder;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class EnqueueAllTest {
+  private static final Pattern EVENT = Pattern.compile("\"event\":");
+
+  private final AggregatorTest.RecordingClient http = new AggregatorTest.RecordingClient();
+  private RudderAnalytics analytics;
+
+  @After
+  public void tearDown() {
+    if (analytics != null) {
+      analytics.shutdown();
+    }
+  }
+
+  @Test
+  public void queuesLongIterationsInChunks() {
+    analytics = builder().build();
+    final int total = 2 * RudderAnalytics.BULK_CHUNK_SIZE + 500;
+    final List<Long> enqueuedBefore = new ArrayList<>();
+
+    analytics.enqueueAll(
+        new Iterator<MessageBuilder>() {
+          int next;
+
+          @Override
+          public boolean hasNext() {
+            return next < total;
+          }
+
+          @Override
+          public MessageBuilder next() {
+            if (next == total) {
+              throw new NoSuchElementException();
+            }
+            enqueuedBefore.add(analytics.metrics().getMessagesEnqueued());
+            return track(next++);
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        });
+
+    for (int i = 0; i < total; i++) {
+      long chunksQueued = i / RudderAnalytics.BULK_CHUNK_SIZE;
+      assertEquals(
+          "Enqueued before message " + i,
+          chunksQueued * RudderAnalytics.BULK_CHUNK_SIZE,
+          (long) enqueuedBefore.get(i));
+    }
+    assertEquals(total, analytics.metrics().getMessagesEnqueued());
+  }
+
+  @Test
+  public void cutsBatchesAtTheFlushQueueSize() throws Exception {
+    analytics = builder().flushQueueSize(100).build();
+    List<MessageBuilder> builders = new ArrayList<>();
+    for (int i = 0; i < 250; i++) {
+      builders.add(track(i));
+    }
+
+    analytics.enqueueAll(builders);
+    analytics.flush();
+
+    List<Integer> sizes = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      String body = http.bodies.poll(5, TimeUnit.SECONDS);
+      assertNotNull("Got batches of " + sizes, body);
+      sizes.add(events(body));
+    }
+    Collections.sort(sizes);
+    assertEquals(Arrays.asList(50, 100, 100), sizes);
+    assertNull(http.bodies.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void admitsEachMessageThroughTheDeduplicatorAndAggregator() throws Exception {
+    analytics =
+        builder()
+            .deduplicate(100, 1, TimeUnit.HOURS)
+            .aggregator(Aggregator.builder().event("Heartbeat", null).build())
+            .build();
+    List<MessageBuilder> builders = new ArrayList<>();
+    builders.add(track(0).messageId("first"));
+    builders.add(track(0).messageId("first"));
+    builders.add(track(1).messageId("second"));
+    for (int i = 0; i < 3; i++) {
+      builders.add(TrackMessage.builder("Heartbeat").userId("user"));
+    }
+
+    analytics.enqueueAll(builders);
+    analytics.flush();
+
+    String body = http.bodies.poll(5, TimeUnit.SECONDS);
+    assertNotNull(body);
+    // The two distinct events, and one roll-up of the heartbeats.
+    assertEquals(body, 3, events(body));
+    assertTrue(body, body.contains("\"count\":3"));
+    assertEquals(1, analytics.metrics().getDuplicatesSuppressed());
+    assertEquals(3, analytics.metrics().getMessagesAggregated());
+  }
+
+  private RudderAnalytics.Builder builder() {
+    return RudderAnalytics.builder("writeKey", "http://localhost")
+        .client(http)
+        .flushInterval(1, TimeUnit.HOURS);
+  }
+
+  private static TrackMessage.Builder track(int i) {
+    return TrackMessage.builder("event-" + i).userId("user");
+  }
+
+  private static int events(String body) {
+    int events = 0;
+    for (Matcher matcher = EVENT.matcher(body); matcher.find(); ) {
+      events++;
+    }
+    return events;
+  }
+}
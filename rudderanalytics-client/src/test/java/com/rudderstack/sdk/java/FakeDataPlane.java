@@ -0,0 +1,180 @@
+package com.rudderstack.sdk.java;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * A stand-in for the data plane's {@code /v1/batch} endpoint, listening on the loopback interface.
+ * Faults are injected at random per request: added latency, 5xx and 429 responses, connections
+ * dropped once the request is read, and slow reads of the request body.
+ */
+final class FakeDataPlane implements Closeable {
+  private static final String MESSAGE_ID = "\"messageId\"";
+  /** Held so that the level is not lost when the logger is collected. */
+  private static final Logger SERVER_LOGGER = Logger.getLogger(MockWebServer.class.getName());
+
+  static {
+    // MockWebServer logs every request.
+    SERVER_LOGGER.setLevel(Level.WARNING);
+  }
+
+  private final MockWebServer server = new MockWebServer();
+  private final long latencyMillis;
+  private final double serverErrorRate;
+  private final double rateLimitRate;
+  private final double resetRate;
+  private final double slowReadRate;
+  private final long slowReadBytesPerSecond;
+
+  final AtomicLong requests = new AtomicLong();
+  final AtomicLong acceptedMessages = new AtomicLong();
+  final AtomicLong serverErrors = new AtomicLong();
+  final AtomicLong rateLimited = new AtomicLong();
+  final AtomicLong resets = new AtomicLong();
+  final AtomicLong slowReads = new AtomicLong();
+
+  static Builder builder() {
+    return new Builder();
+  }
+
+  private FakeDataPlane(Builder builder) throws IOException {
+    latencyMillis = builder.latencyMillis;
+    serverErrorRate = builder.serverErrorRate;
+    rateLimitRate = builder.rateLimitRate;
+    resetRate = builder.resetRate;
+    slowReadRate = builder.slowReadRate;
+    slowReadBytesPerSecond = builder.slowReadBytesPerSecond;
+    server.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            return respond(request);
+          }
+
+          @Override
+          public MockResponse peek() {
+            // The request body is read at the rate this response is throttled to.
+            if (ThreadLocalRandom.current().nextDouble() < slowReadRate) {
+              slowReads.incrementAndGet();
+              return new MockResponse()
+                  .throttleBody(slowReadBytesPerSecond / 100, 10, TimeUnit.MILLISECONDS);
+            }
+            return new MockResponse();
+          }
+        });
+    server.start();
+  }
+
+  /** Returns the data plane URL to build clients with. */
+  String url() {
+    String url = server.url("/").toString();
+    return url.substring(0, url.length() - 1);
+  }
+
+  private MockResponse respond(RecordedRequest request) {
+    requests.incrementAndGet();
+    if (!"/v1/batch".equals(request.getPath())) {
+      return new MockResponse().setResponseCode(404);
+    }
+    MockResponse response =
+        new MockResponse().setHeadersDelay(latencyMillis, TimeUnit.MILLISECONDS);
+    double roll = ThreadLocalRandom.current().nextDouble();
+    if ((roll -= resetRate) < 0) {
+      resets.incrementAndGet();
+      return response.setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+    }
+    if ((roll -= serverErrorRate) < 0) {
+      serverErrors.incrementAndGet();
+      return response.setResponseCode(503);
+    }
+    if (roll - rateLimitRate < 0) {
+      rateLimited.incrementAndGet();
+      return response.setResponseCode(429);
+    }
+    acceptedMessages.addAndGet(count(request.getBody().readUtf8(), MESSAGE_ID));
+    return response.setBody("OK");
+  }
+
+  private static int count(String s, String substring) {
+    int count = 0;
+    for (int i = s.indexOf(substring); i >= 0; i = s.indexOf(substring, i + substring.length())) {
+      count++;
+    }
+    return count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    server.shutdown();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d requests, %d messages accepted, %d 5xx, %d 429, %d resets, %d slow reads",
+        requests.get(),
+        acceptedMessages.get(),
+        serverErrors.get(),
+        rateLimited.get(),
+        resets.get(),
+        slowReads.get());
+  }
+
+  static final class Builder {
+    private long latencyMillis;
+    private double serverErrorRate;
+    private double rateLimitRate;
+    private double resetRate;
+    private double slowReadRate;
+    private long slowReadBytesPerSecond = 1024 * 1024;
+
+    /** Delay every response by {@code latency}. */
+    Builder latency(long latency, TimeUnit unit) {
+      latencyMillis = unit.toMillis(latency);
+      return this;
+    }
+
+    /** Answer this fraction of requests with a 503. */
+    Builder serverErrorRate(double rate) {
+      serverErrorRate = rate;
+      return this;
+    }
+
+    /** Answer this fraction of requests with a 429. */
+    Builder rateLimitRate(double rate) {
+      rateLimitRate = rate;
+      return this;
+    }
+
+    /** Close the connection without answering this fraction of requests. */
+    Builder resetRate(double rate) {
+      resetRate = rate;
+      return this;
+    }
+
+    /** Read the body of this fraction of requests at only {@code bytesPerSecond}. */
+    Builder slowReads(double rate, long bytesPerSecond) {
+      slowReadRate = rate;
+      slowReadBytesPerSecond = bytesPerSecond;
+      return this;
+    }
+
+    FakeDataPlane start() throws IOException {
+      if (serverErrorRate + rateLimitRate + resetRate > 1) {
+        throw new IllegalArgumentException("Fault rates must not add up to more than 1.");
+      }
+      return new FakeDataPlane(this);
+    }
+  }
+}
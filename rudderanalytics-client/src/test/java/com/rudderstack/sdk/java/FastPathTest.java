@@ -0,0 +1,173 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.rudderstack.sdk.java.messages.AliasMessage;
+import com.rudderstack.sdk.java.messages.GroupMessage;
+import com.rudderstack.sdk.java.messages.IdentifyMessage;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.PageMessage;
+import com.rudderstack.sdk.java.messages.ScreenMessage;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/** {@link RudderAnalytics#track(String, String, Map)} against the builder path. */
+public class FastPathTest {
+  private final Map<String, Object> properties =
+      Collections.<String, Object>singletonMap("price", 10);
+  private final List<Message> intercepted = new CopyOnWriteArrayList<>();
+  private final StringBuilder transformed = new StringBuilder();
+  private RudderAnalytics analytics;
+
+  @After
+  public void tearDown() {
+    if (analytics != null) {
+      analytics.shutdown();
+    }
+  }
+
+  @Test
+  public void createBuildsWhatTheBuilderBuilds() {
+    TrackMessage created = TrackMessage.create("user", "Order Completed", properties);
+    TrackMessage built =
+        TrackMessage.builder("Order Completed")
+            .userId("user")
+            .properties(properties)
+            .messageId(created.messageId())
+            .timestamp(created.timestamp())
+            .build();
+
+    assertEquals(built, created);
+  }
+
+  @Test
+  public void enqueuesWhatTheBuilderPathEnqueues() {
+    analytics = builder().build();
+
+    analytics.track("user", "Order Completed", properties);
+    analytics.enqueue(
+        TrackMessage.builder("Order Completed").userId("user").properties(properties));
+
+    assertEquals(2, intercepted.size());
+    assertEquals(withoutIds(intercepted.get(1)), withoutIds(intercepted.get(0)));
+  }
+
+  @Test
+  public void takesTheBuilderPathWhenTransformersHandleTrack() {
+    analytics = builder().messageTransformer(transformer(Message.Type.track)).build();
+
+    analytics.track("user", "Order Completed", properties);
+
+    assertEquals("track ", transformed.toString());
+    TrackMessage message = (TrackMessage) intercepted.get(0);
+    assertEquals("user", message.userId());
+    assertEquals("Order Completed", message.event());
+    assertEquals(properties, message.properties());
+  }
+
+  @Test
+  public void skipsTransformersForOtherTypes() {
+    analytics = builder().messageTransformer(transformer(Message.Type.identify)).build();
+
+    analytics.track("user", "Order Completed", properties);
+
+    assertEquals("", transformed.toString());
+    assertEquals(1, intercepted.size());
+  }
+
+  @Test
+  public void dropsMessagesTheInterceptorsDrop() {
+    analytics =
+        builder()
+            .messageInterceptor(
+                new MessageInterceptor() {
+                  @Override
+                  public Message intercept(Message message) {
+                    return null;
+                  }
+                })
+            .build();
+
+    analytics.track("user", "Order Completed", properties);
+
+    assertEquals(1, analytics.metrics().getMessagesFiltered());
+    assertEquals(0, analytics.metrics().getMessagesEnqueued());
+    assertEquals(1, intercepted.size());
+  }
+
+  private RudderAnalytics.Builder builder() {
+    return RudderAnalytics.builder("writeKey", "http://localhost")
+        .client(new AggregatorTest.RecordingClient())
+        .flushInterval(1, TimeUnit.HOURS)
+        .messageInterceptor(
+            new MessageInterceptor() {
+              @Override
+              public Message intercept(Message message) {
+                intercepted.add(message);
+                return message;
+              }
+            });
+  }
+
+  /** Returns the message with a fixed ID and timestamp, to compare the rest of it. */
+  private static TrackMessage withoutIds(Message message) {
+    TrackMessage track = (TrackMessage) message;
+    assertNull(track.anonymousId());
+    return track.toBuilder().messageId("id").timestamp(new Date(0)).build();
+  }
+
+  /** Returns a transformer that handles only {@code type}, recording the types it sees. */
+  private MessageTransformer transformer(final Message.Type only) {
+    return new MessageTransformer.Typed() {
+      @Override
+      public boolean handles(Message.Type type) {
+        return type == only;
+      }
+
+      @Override
+      boolean alias(AliasMessage.Builder builder) {
+        return record(Message.Type.alias);
+      }
+
+      @Override
+      boolean group(GroupMessage.Builder builder) {
+        return record(Message.Type.group);
+      }
+
+      @Override
+      boolean identify(IdentifyMessage.Builder builder) {
+        return record(Message.Type.identify);
+      }
+
+      @Override
+      boolean screen(ScreenMessage.Builder builder) {
+        return record(Message.Type.screen);
+      }
+
+      @Override
+      boolean page(PageMessage.Builder builder) {
+        return record(Message.Type.page);
+      }
+
+      @Override
+      boolean track(TrackMessage.Builder builder) {
+        return record(Message.Type.track);
+      }
+    };
+  }
+
+  private boolean record(Message.Type type) {
+    transformed.append(type).append(' ');
+    return true;
+  }
+}
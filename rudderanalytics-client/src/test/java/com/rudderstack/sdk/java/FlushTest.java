@@ -0,0 +1,171 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertTrue;
+
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import retrofit.client.Client;
+import retrofit.client.Header;
+import retrofit.client.Request;
+import retrofit.client.Response;
+import retrofit.mime.TypedByteArray;
+
+/**
+ * Flushes racing with producers that send with several write keys, while uploads finish out of
+ * order and some are retried. A flush has to wait for every message enqueued before it.
+ */
+public class FlushTest {
+  private static final Pattern MESSAGE_ID = Pattern.compile("\"messageId\":\"([^\"]+)\"");
+  private static final String[] WRITE_KEYS = {null, "key-a", "key-b"};
+  private static final int PRODUCERS = 3;
+  private static final int ROUNDS = 5;
+
+  private final Set<String> uploaded =
+      Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  private final AtomicIntegerArray enqueued = new AtomicIntegerArray(PRODUCERS);
+  private final List<Thread> producers = new ArrayList<>();
+  private volatile boolean stopped;
+  private RudderAnalytics analytics;
+
+  @Before
+  public void setUp() {
+    analytics =
+        RudderAnalytics.builder("writeKey", "http://localhost")
+            .client(new SlowClient())
+            .networkExecutor(Executors.newFixedThreadPool(4))
+            .flushQueueSize(10)
+            .flushInterval(1, TimeUnit.HOURS)
+            .retryBackoff(1, 5, TimeUnit.MILLISECONDS)
+            .build();
+    for (int i = 0; i < PRODUCERS; i++) {
+      final int producer = i;
+      Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  for (int n = 0; !stopped; n++) {
+                    String writeKey = WRITE_KEYS[n % WRITE_KEYS.length];
+                    TrackMessage.Builder builder =
+                        TrackMessage.builder("event").userId("user").messageId(producer + "-" + n);
+                    if (writeKey == null) {
+                      analytics.enqueue(builder);
+                    } else {
+                      analytics.enqueue(writeKey, builder);
+                    }
+                    enqueued.incrementAndGet(producer);
+                    try {
+                      Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                      return;
+                    }
+                  }
+                }
+              });
+      thread.setDaemon(true);
+      producers.add(thread);
+    }
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    stopped = true;
+    for (Thread producer : producers) {
+      producer.join();
+    }
+    analytics.shutdown();
+  }
+
+  @Test(timeout = 60000)
+  public void blockFlushWaitsForEveryWriteKey() throws Exception {
+    startProducers();
+    for (int round = 0; round < ROUNDS; round++) {
+      Thread.sleep(20);
+      int[] before = snapshot();
+      analytics.blockFlush();
+      assertUploaded(before);
+    }
+  }
+
+  @Test
+  public void flushAsyncWaitsForEveryWriteKey() throws Exception {
+    startProducers();
+    for (int round = 0; round < ROUNDS; round++) {
+      Thread.sleep(20);
+      int[] before = snapshot();
+      analytics.flushAsync().get(30, TimeUnit.SECONDS);
+      assertUploaded(before);
+    }
+  }
+
+  private void startProducers() {
+    for (Thread producer : producers) {
+      producer.start();
+    }
+  }
+
+  /** Returns how many messages each producer has enqueued so far. */
+  private int[] snapshot() {
+    int[] counts = new int[PRODUCERS];
+    for (int i = 0; i < PRODUCERS; i++) {
+      counts[i] = enqueued.get(i);
+    }
+    return counts;
+  }
+
+  private void assertUploaded(int[] before) {
+    for (int producer = 0; producer < PRODUCERS; producer++) {
+      for (int n = 0; n < before[producer]; n++) {
+        String messageId = producer + "-" + n;
+        assertTrue(messageId + " was not uploaded before the flush", uploaded.contains(messageId));
+      }
+    }
+  }
+
+  /** Takes up to 10 ms per upload and fails one in ten, recording what it accepts. */
+  final class SlowClient implements Client {
+    @Override
+    public Response execute(Request request) throws IOException {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      request.getBody().writeTo(body);
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      try {
+        Thread.sleep(random.nextInt(10));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      int status = random.nextInt(10) == 0 ? 500 : 200;
+      if (status == 200) {
+        for (Matcher matcher = MESSAGE_ID.matcher(body.toString("UTF-8")); matcher.find(); ) {
+          uploaded.add(matcher.group(1));
+        }
+      }
+      return new Response(
+          request.getUrl(),
+          status,
+          status == 200 ? "OK" : "Internal Server Error",
+          Collections.<Header>emptyList(),
+          new TypedByteArray("application/json", "{\"response\":\"OK\"}".getBytes()));
+    }
+  }
+}
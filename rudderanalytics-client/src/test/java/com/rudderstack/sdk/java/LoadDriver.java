@@ -0,0 +1,179 @@
+package com.rudderstack.sdk.java;
+
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Pushes events through {@link RudderAnalytics} from several producer threads and reports the
+ * sustained throughput, the latency from enqueue to acknowledgement of each event, and the heap
+ * used while doing so.
+ */
+final class LoadDriver {
+  private final RudderAnalytics analytics;
+  private final int events;
+  private final int producers;
+
+  LoadDriver(RudderAnalytics analytics, int events, int producers) {
+    this.analytics = analytics;
+    this.events = events;
+    this.producers = producers;
+  }
+
+  /** Sends all events, waiting up to {@code timeout} for them to be acknowledged. */
+  Report run(long timeout, TimeUnit unit) throws InterruptedException {
+    final long[] latencies = new long[events];
+    final CountDownLatch acked = new CountDownLatch(events);
+    final AtomicInteger delivered = new AtomicInteger();
+    final AtomicLong lastAck = new AtomicLong();
+    final Map<String, Object> properties = new LinkedHashMap<>();
+    properties.put("plan", "enterprise");
+    properties.put("seats", 25);
+
+    System.gc();
+    for (MemoryPoolMXBean pool : heapPools()) {
+      pool.resetPeakUsage();
+    }
+    final long start = System.nanoTime();
+    Thread[] threads = new Thread[producers];
+    for (int t = 0; t < producers; t++) {
+      final int first = t;
+      threads[t] =
+          new Thread("load-producer-" + t) {
+            @Override
+            public void run() {
+              for (int i = first; i < events; i += producers) {
+                final int index = i;
+                final long enqueued = System.nanoTime();
+                analytics
+                    .submit(
+                        TrackMessage.builder("Load Test")
+                            .userId("user-" + (i % 1000))
+                            .properties(properties))
+                    .whenComplete(
+                        new BiConsumer<DeliveryResult, Throwable>() {
+                          @Override
+                          public void accept(DeliveryResult result, Throwable failure) {
+                            long now = System.nanoTime();
+                            latencies[index] = now - enqueued;
+                            if (result != null && result.isDelivered()) {
+                              delivered.incrementAndGet();
+                            }
+                            long last;
+                            do {
+                              last = lastAck.get();
+                            } while (now > last && !lastAck.compareAndSet(last, now));
+                            acked.countDown();
+                          }
+                        });
+              }
+            }
+          };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long enqueuedNanos = System.nanoTime() - start;
+    analytics.flush();
+    boolean completed = acked.await(timeout, unit);
+
+    long peakHeap = 0;
+    for (MemoryPoolMXBean pool : heapPools()) {
+      peakHeap += pool.getPeakUsage().getUsed();
+    }
+    long elapsed = (completed ? lastAck.get() : System.nanoTime()) - start;
+    Arrays.sort(latencies);
+    return new Report(
+        events,
+        events - (int) acked.getCount(),
+        delivered.get(),
+        enqueuedNanos,
+        elapsed,
+        latencies,
+        peakHeap);
+  }
+
+  private static Iterable<MemoryPoolMXBean> heapPools() {
+    List<MemoryPoolMXBean> heap = new ArrayList<>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        heap.add(pool);
+      }
+    }
+    return heap;
+  }
+
+  static final class Report {
+    final int events;
+    final int acked;
+    final int delivered;
+    final long enqueueNanos;
+    final long elapsedNanos;
+    /** Sorted enqueue-to-ack latencies, in nanoseconds. */
+    private final long[] latencies;
+    /** Sum of the peak usage of each heap memory pool. */
+    final long peakHeapBytes;
+
+    Report(
+        int events,
+        int acked,
+        int delivered,
+        long enqueueNanos,
+        long elapsedNanos,
+        long[] latencies,
+        long peakHeapBytes) {
+      this.events = events;
+      this.acked = acked;
+      this.delivered = delivered;
+      this.enqueueNanos = enqueueNanos;
+      this.elapsedNanos = elapsedNanos;
+      this.latencies = latencies;
+      this.peakHeapBytes = peakHeapBytes;
+    }
+
+    /** Returns events acknowledged per second, from the first enqueue to the last ack. */
+    double eventsPerSecond() {
+      return acked * 1e9 / elapsedNanos;
+    }
+
+    /** Returns the {@code quantile} of enqueue-to-ack latency, in milliseconds. */
+    double latencyMillis(double quantile) {
+      if (latencies.length == 0) {
+        return 0;
+      }
+      int index = Math.min(latencies.length - 1, (int) (quantile * latencies.length));
+      return latencies[index] / 1e6;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%d events, %d acked, %d delivered%n"
+              + "enqueued in %.0f ms, %.0f events/s sustained%n"
+              + "enqueue-to-ack p50 %.1f ms, p99 %.1f ms, p999 %.1f ms%n"
+              + "peak heap %.1f MB",
+          events,
+          acked,
+          delivered,
+          enqueueNanos / 1e6,
+          eventsPerSecond(),
+          latencyMillis(0.5),
+          latencyMillis(0.99),
+          latencyMillis(0.999),
+          peakHeapBytes / (1024.0 * 1024.0));
+    }
+  }
+}
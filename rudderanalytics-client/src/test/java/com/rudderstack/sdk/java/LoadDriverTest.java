@@ -0,0 +1,97 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs {@link LoadDriver} against a faulty {@link FakeDataPlane}. By default it is a smoke test of
+ * {@value #SMOKE_EVENTS} events; pass {@code -Dload} for a load of {@value #LOAD_EVENTS} events, or
+ * {@code -Dload.events} for a load of that many, and {@code -Dload.*} properties to tune it, for
+ * example:
+ *
+ * <pre>
+ * mvn -pl rudderanalytics-client test -Dtest=LoadDriverTest -Dload.events=2000000 \
+ *     -Dload.producers=16 -Dload.uploaders=8 -Dload.latencyMillis=20
+ * </pre>
+ *
+ * <p>Each run prints its throughput, latency and heap figures, and writes them to {@value
+ * #REPORT_FILE} (or {@code -Dload.report}).
+ */
+public class LoadDriverTest {
+  static final int SMOKE_EVENTS = 1000;
+  static final int LOAD_EVENTS = 20000;
+  static final String REPORT_FILE = "target/load-driver-report.txt";
+
+  private FakeDataPlane dataPlane;
+  private RudderAnalytics analytics;
+
+  @Before
+  public void setUp() throws Exception {
+    dataPlane =
+        FakeDataPlane.builder()
+            .latency(Long.getLong("load.latencyMillis", 5), TimeUnit.MILLISECONDS)
+            .serverErrorRate(doubleProperty("load.serverErrorRate", 0.02))
+            .rateLimitRate(doubleProperty("load.rateLimitRate", 0.02))
+            .resetRate(doubleProperty("load.resetRate", 0.01))
+            .slowReads(doubleProperty("load.slowReadRate", 0.05), 256 * 1024)
+            .start();
+    analytics =
+        RudderAnalytics.builder("writeKey", dataPlane.url())
+            .networkExecutor(Executors.newFixedThreadPool(Integer.getInteger("load.uploaders", 4)))
+            .retryBackoff(10, 200, TimeUnit.MILLISECONDS)
+            .build();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    analytics.shutdown();
+    dataPlane.close();
+  }
+
+  @Test
+  public void deliversEveryEventDespiteFaults() throws Exception {
+    int events =
+        Integer.getInteger(
+            "load.events", System.getProperty("load") == null ? SMOKE_EVENTS : LOAD_EVENTS);
+    LoadDriver driver = new LoadDriver(analytics, events, Integer.getInteger("load.producers", 4));
+
+    LoadDriver.Report report = driver.run(5, TimeUnit.MINUTES);
+
+    String summary = report + "\n" + dataPlane;
+    System.out.println(summary);
+    write(summary, new File(System.getProperty("load.report", REPORT_FILE)));
+    assertEquals(summary, events, report.acked);
+    assertEquals(summary, events, report.delivered);
+    assertTrue(summary, dataPlane.acceptedMessages.get() >= events);
+  }
+
+  private static void write(String summary, File file) throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (!parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("Could not create " + parent);
+    }
+    try (Writer writer =
+        new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"))) {
+      writer.write(summary);
+      writer.write(System.lineSeparator());
+    }
+  }
+
+  private static double doubleProperty(String key, double defaultValue) {
+    String value = System.getProperty(key);
+    return value == null ? defaultValue : Double.parseDouble(value);
+  }
+}
@@ -0,0 +1,240 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.rudderstack.sdk.java.messages.AliasMessage;
+import com.rudderstack.sdk.java.messages.GroupMessage;
+import com.rudderstack.sdk.java.messages.IdentifyMessage;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.MessageBuilder;
+import com.rudderstack.sdk.java.messages.PageMessage;
+import com.rudderstack.sdk.java.messages.ScreenMessage;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class MessagePipelineTest {
+  private final StringBuilder calls = new StringBuilder();
+
+  @Test
+  public void runsTransformersInRegistrationOrderPerType() {
+    MessagePipeline pipeline =
+        new MessagePipeline(
+            Arrays.asList(
+                typedTransformer("a", Message.Type.track),
+                transformer("b", true),
+                typedTransformer("c", null),
+                typedTransformer("d", Message.Type.identify)),
+            Collections.<MessageInterceptor>emptyList());
+
+    assertTrue(pipeline.transform(TrackMessage.builder("event").userId("user")));
+    assertEquals("a:track b c:track ", calls.toString());
+
+    calls.setLength(0);
+    assertTrue(pipeline.transform(IdentifyMessage.builder().userId("user")));
+    assertEquals("b c:identify d:identify ", calls.toString());
+
+    calls.setLength(0);
+    assertTrue(pipeline.transform(AliasMessage.builder("previous").userId("user")));
+    assertEquals("b c:alias ", calls.toString());
+  }
+
+  @Test
+  public void stopsTransformingOnceAMessageIsRejected() {
+    MessagePipeline pipeline =
+        new MessagePipeline(
+            Arrays.asList(
+                typedTransformer("a", null), transformer("b", false), transformer("c", true)),
+            Collections.<MessageInterceptor>emptyList());
+
+    assertFalse(pipeline.transform(TrackMessage.builder("event").userId("user")));
+    assertEquals("a:track b ", calls.toString());
+  }
+
+  @Test
+  public void leavesOutTypesNoTransformerHandles() {
+    MessagePipeline pipeline =
+        new MessagePipeline(
+            Collections.singletonList(typedTransformer("a", Message.Type.track)),
+            Collections.<MessageInterceptor>emptyList());
+
+    assertTrue(pipeline.hasTransformers(Message.Type.track));
+    assertFalse(pipeline.hasTransformers(Message.Type.page));
+    assertTrue(pipeline.transform(PageMessage.builder("home").userId("user")));
+    assertEquals("", calls.toString());
+  }
+
+  @Test
+  public void runsInterceptorsInRegistrationOrderPerType() {
+    MessagePipeline pipeline =
+        new MessagePipeline(
+            Collections.<MessageTransformer>emptyList(),
+            Arrays.asList(
+                interceptor("a", false),
+                typedInterceptor("b", Message.Type.group),
+                typedInterceptor("c", null),
+                interceptor("d", false)));
+
+    GroupMessage group = GroupMessage.builder("group").userId("user").build();
+    assertSame(group, pipeline.intercept(group));
+    assertEquals("a b:group c:group d ", calls.toString());
+
+    calls.setLength(0);
+    ScreenMessage screen = ScreenMessage.builder("home").userId("user").build();
+    assertSame(screen, pipeline.intercept(screen));
+    assertEquals("a c:screen d ", calls.toString());
+  }
+
+  @Test
+  public void stopsInterceptingOnceAMessageIsDropped() {
+    MessagePipeline pipeline =
+        new MessagePipeline(
+            Collections.<MessageTransformer>emptyList(),
+            Arrays.asList(
+                typedInterceptor("a", null), interceptor("b", true), interceptor("c", false)));
+
+    assertNull(pipeline.intercept(TrackMessage.builder("event").userId("user").build()));
+    assertEquals("a:track b ", calls.toString());
+  }
+
+  @Test
+  public void switchesPipelinesWhenAnInterceptorChangesTheType() {
+    final ScreenMessage screen = ScreenMessage.builder("home").userId("user").build();
+    MessagePipeline pipeline =
+        new MessagePipeline(
+            Collections.<MessageTransformer>emptyList(),
+            Arrays.asList(
+                typedInterceptor("a", Message.Type.track),
+                new MessageInterceptor() {
+                  @Override
+                  public Message intercept(Message message) {
+                    calls.append("convert ");
+                    return screen;
+                  }
+                },
+                typedInterceptor("b", Message.Type.track),
+                typedInterceptor("c", null),
+                typedInterceptor("d", Message.Type.screen)));
+
+    assertSame(screen, pipeline.intercept(TrackMessage.builder("event").userId("user").build()));
+    assertEquals("a:track convert c:screen d:screen ", calls.toString());
+  }
+
+  private MessageTransformer transformer(final String name, final boolean keep) {
+    return new MessageTransformer() {
+      @Override
+      public boolean transform(MessageBuilder builder) {
+        calls.append(name).append(' ');
+        return keep;
+      }
+    };
+  }
+
+  /** Returns a typed transformer that handles {@code only}, or every type if it is null. */
+  private MessageTransformer typedTransformer(final String name, final Message.Type only) {
+    return new MessageTransformer.Typed() {
+      @Override
+      public boolean handles(Message.Type type) {
+        return only == null || only == type;
+      }
+
+      @Override
+      boolean alias(AliasMessage.Builder builder) {
+        return record(name, Message.Type.alias);
+      }
+
+      @Override
+      boolean group(GroupMessage.Builder builder) {
+        return record(name, Message.Type.group);
+      }
+
+      @Override
+      boolean identify(IdentifyMessage.Builder builder) {
+        return record(name, Message.Type.identify);
+      }
+
+      @Override
+      boolean screen(ScreenMessage.Builder builder) {
+        return record(name, Message.Type.screen);
+      }
+
+      @Override
+      boolean page(PageMessage.Builder builder) {
+        return record(name, Message.Type.page);
+      }
+
+      @Override
+      boolean track(TrackMessage.Builder builder) {
+        return record(name, Message.Type.track);
+      }
+    };
+  }
+
+  private MessageInterceptor interceptor(final String name, final boolean drop) {
+    return new MessageInterceptor() {
+      @Override
+      public Message intercept(Message message) {
+        calls.append(name).append(' ');
+        return drop ? null : message;
+      }
+    };
+  }
+
+  /** Returns a typed interceptor that handles {@code only}, or every type if it is null. */
+  private MessageInterceptor typedInterceptor(final String name, final Message.Type only) {
+    return new MessageInterceptor.Typed() {
+      @Override
+      public boolean handles(Message.Type type) {
+        return only == null || only == type;
+      }
+
+      @Override
+      AliasMessage alias(AliasMessage message) {
+        record(name, Message.Type.alias);
+        return message;
+      }
+
+      @Override
+      GroupMessage group(GroupMessage message) {
+        record(name, Message.Type.group);
+        return message;
+      }
+
+      @Override
+      IdentifyMessage identify(IdentifyMessage message) {
+        record(name, Message.Type.identify);
+        return message;
+      }
+
+      @Override
+      ScreenMessage screen(ScreenMessage message) {
+        record(name, Message.Type.screen);
+        return message;
+      }
+
+      @Override
+      PageMessage page(PageMessage message) {
+        record(name, Message.Type.page);
+        return message;
+      }
+
+      @Override
+      TrackMessage track(TrackMessage message) {
+        record(name, Message.Type.track);
+        return message;
+      }
+    };
+  }
+
+  private boolean record(String name, Message.Type type) {
+    calls.append(name).append(':').append(type).append(' ');
+    return true;
+  }
+}
@@ -0,0 +1,261 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.MessageBuilder;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import retrofit.client.Client;
+import retrofit.client.Header;
+import retrofit.client.Request;
+import retrofit.client.Response;
+import retrofit.mime.TypedByteArray;
+
+public class RudderRuntimeTest {
+  private final List<Thread> threads = new CopyOnWriteArrayList<>();
+  private final List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+  private final ThreadFactory threadFactory =
+      new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable);
+          thread.setDaemon(true);
+          thread.setUncaughtExceptionHandler(
+              new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread thread, Throwable e) {
+                  uncaught.add(e);
+                }
+              });
+          threads.add(thread);
+          return thread;
+        }
+      };
+  private final List<RudderAnalytics> clients = new ArrayList<>();
+  private RudderRuntime runtime;
+
+  @After
+  public void tearDown() {
+    for (RudderAnalytics client : clients) {
+      client.shutdown();
+    }
+    if (runtime != null) {
+      runtime.shutdown();
+    }
+  }
+
+  @Test
+  public void sharesItsThreadsBetweenClients() throws Exception {
+    runtime = RudderRuntime.builder().uploadThreads(2).threadFactory(threadFactory).build();
+    UploadClient http = new UploadClient(200);
+    for (int i = 0; i < 5; i++) {
+      client(http, null).enqueue(track("event-" + i));
+    }
+    for (RudderAnalytics client : clients) {
+      client.flush();
+    }
+
+    for (int i = 0; i < 5; i++) {
+      assertNotNull("Not every client uploaded", http.bodies.poll(5, TimeUnit.SECONDS));
+    }
+    // Two upload threads, one for callbacks and the scheduler's, however many clients there are.
+    assertTrue("Started " + threads.size() + " threads", threads.size() <= 4);
+  }
+
+  @Test
+  public void keepsUploadingForOthersWhileAClientBacksOff() throws Exception {
+    runtime = RudderRuntime.builder().uploadThreads(1).threadFactory(threadFactory).build();
+    UploadClient failing = new UploadClient(500);
+    UploadClient healthy = new UploadClient(200);
+    RudderAnalytics backingOff = client(failing, null);
+    RudderAnalytics other = client(healthy, null);
+
+    backingOff.enqueue(track("event"));
+    backingOff.flush();
+    assertNotNull(failing.bodies.poll(5, TimeUnit.SECONDS));
+    other.enqueue(track("event"));
+    other.flush();
+
+    assertNotNull(
+        "The backoff held the only upload thread", healthy.bodies.poll(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void keepsRunningCallbacksWhenOneThrows() throws Exception {
+    runtime = RudderRuntime.builder().threadFactory(threadFactory).build();
+    final CountDownLatch delivered = new CountDownLatch(1);
+    RudderAnalytics throwing =
+        client(
+            new UploadClient(200),
+            new BatchCallback() {
+              @Override
+              public void success(Batch batch) {
+                throw new AssertionError("callback failed");
+              }
+
+              @Override
+              public void failure(Batch batch, Throwable throwable) {}
+            });
+    RudderAnalytics other =
+        client(
+            new UploadClient(200),
+            new BatchCallback() {
+              @Override
+              public void success(Batch batch) {
+                delivered.countDown();
+              }
+
+              @Override
+              public void failure(Batch batch, Throwable throwable) {}
+            });
+
+    throwing.enqueue(track("event"));
+    throwing.flush();
+    awaitUncaught();
+    other.enqueue(track("event"));
+    other.flush();
+
+    assertTrue(
+        "The callback thread died with the callback", delivered.await(5, TimeUnit.SECONDS));
+    assertTrue(uncaught.get(0) instanceof AssertionError);
+  }
+
+  @Test
+  public void splitsBulkEnqueuesAcrossLooperTurns() throws Exception {
+    runtime = RudderRuntime.builder().threadFactory(threadFactory).build();
+    UploadClient http = new UploadClient(200);
+    final RudderAnalytics client =
+        RudderAnalytics.builder("writeKey", "http://localhost")
+            .runtime(runtime)
+            .client(http)
+            .flushQueueSize(100)
+            .flushInterval(1, TimeUnit.HOURS)
+            .build();
+    clients.add(client);
+    List<MessageBuilder> builders = new ArrayList<>();
+    for (int i = 0; i < 2 * RudderAnalytics.BULK_CHUNK_SIZE; i++) {
+      builders.add(track("event-" + i));
+    }
+    final CountDownLatch release = new CountDownLatch(1);
+    runtime.scheduler.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        });
+    client.enqueueAll(builders);
+    // Queued behind the looper's first turn, as another client's would be.
+    final BlockingQueue<Long> depths = new LinkedBlockingQueue<>();
+    runtime.scheduler.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            depths.add(client.metrics().getQueueDepth());
+          }
+        });
+
+    release.countDown();
+
+    Long depth = depths.poll(5, TimeUnit.SECONDS);
+    assertNotNull(depth);
+    // The first turn took one batch off the first bulk enqueue of 1000.
+    assertEquals(2 * RudderAnalytics.BULK_CHUNK_SIZE - 100, (long) depth);
+    for (int i = 0; i < 2 * RudderAnalytics.BULK_CHUNK_SIZE / 100; i++) {
+      assertNotNull("Not every batch was sent", http.bodies.poll(5, TimeUnit.SECONDS));
+    }
+    assertEquals(0, client.metrics().getQueueDepth());
+  }
+
+  @Test
+  public void stopsItsThreadsOnShutdown() throws Exception {
+    runtime = RudderRuntime.builder().uploadThreads(2).threadFactory(threadFactory).build();
+    UploadClient http = new UploadClient(200);
+    RudderAnalytics client = client(http, null);
+    client.enqueue(track("event"));
+    client.flush();
+    assertNotNull(http.bodies.poll(5, TimeUnit.SECONDS));
+
+    client.shutdown();
+    runtime.shutdown();
+
+    assertFalse(threads.isEmpty());
+    for (Thread thread : threads) {
+      thread.join(5000);
+      assertFalse(thread + " is still running", thread.isAlive());
+    }
+  }
+
+  private RudderAnalytics client(Client http, BatchCallback callback) {
+    RudderAnalytics.Builder builder =
+        RudderAnalytics.builder("writeKey", "http://localhost")
+            .runtime(runtime)
+            .client(http)
+            .retryBackoff(1, 1, TimeUnit.HOURS)
+            .flushInterval(1, TimeUnit.HOURS);
+    if (callback != null) {
+      builder.batchCallback(callback);
+    }
+    RudderAnalytics client = builder.build();
+    clients.add(client);
+    return client;
+  }
+
+  private void awaitUncaught() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (uncaught.isEmpty()) {
+      assertTrue("Nothing was reported", System.nanoTime() - deadline < 0);
+      Thread.sleep(1);
+    }
+  }
+
+  private static TrackMessage.Builder track(String event) {
+    return TrackMessage.builder(event).userId("user");
+  }
+
+  /** Answers every upload with a fixed status, recording its body. */
+  static final class UploadClient implements Client {
+    final BlockingQueue<String> bodies = new LinkedBlockingQueue<>();
+    private final int status;
+
+    UploadClient(int status) {
+      this.status = status;
+    }
+
+    @Override
+    public Response execute(Request request) throws IOException {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      request.getBody().writeTo(body);
+      bodies.add(body.toString("UTF-8"));
+      return new Response(
+          request.getUrl(),
+          status,
+          status == 200 ? "OK" : "Internal Server Error",
+          Collections.<Header>emptyList(),
+          new TypedByteArray("application/json", "{\"response\":\"OK\"}".getBytes()));
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.rudderstack.sdk.java.messages.EncodedMap;
+import com.rudderstack.sdk.java.messages.IdentifyMessage;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SamplerTest {
+  @Test
+  public void picksTheEventRateOverTheTypeRate() {
+    Sampler sampler =
+        Sampler.builder()
+            .rate(Message.Type.track, 0.5)
+            .rate(Message.Type.page, 1)
+            .eventRate("Heartbeat", 0.01)
+            .eventRate("Purchase", 1)
+            .build();
+
+    assertEquals(0.01, sampler.rate(TrackMessage.builder("Heartbeat")).rate, 0);
+    assertEquals(0.5, sampler.rate(TrackMessage.builder("Click")).rate, 0);
+    // A rate of 1 keeps everything, so there is nothing to sample.
+    assertNull(sampler.rate(TrackMessage.builder("Purchase")));
+    assertNull(sampler.rate(Message.Type.page, null));
+    assertNull(sampler.rate(IdentifyMessage.builder()));
+    // Event rates only apply to track messages.
+    assertNull(sampler.rate(Message.Type.screen, "Heartbeat"));
+  }
+
+  @Test
+  public void keepsOrDropsEachUserConsistently() {
+    Sampler sampler = Sampler.builder().rate(Message.Type.track, 0.25).build();
+
+    int kept = 0;
+    for (int i = 0; i < 10000; i++) {
+      String userId = "user-" + i;
+      boolean keeps = sampler.sample(Message.Type.track, "event", userId, null);
+      assertEquals(keeps, sampler.sample(Message.Type.track, "other", userId, null));
+      // The user ID decides, not the anonymous ID.
+      assertEquals(keeps, sampler.sample(Message.Type.track, "event", userId, "anonymous-" + i));
+      assertEquals(keeps, sampler.sample(Message.Type.track, "event", null, userId));
+      if (keeps) {
+        kept++;
+      }
+    }
+    assertTrue("Kept " + kept + " of 10000 users", kept > 2250 && kept < 2750);
+    assertTrue(sampler.sample(Message.Type.track, "event", null, null));
+    assertTrue(sampler.sample(Message.Type.identify, null, "user-0", null));
+  }
+
+  @Test
+  public void keepsNoneOrAllAtTheExtremes() {
+    Sampler sampler =
+        Sampler.builder().rate(Message.Type.track, 0).rate(Message.Type.page, 1).build();
+
+    for (int i = 0; i < 1000; i++) {
+      assertFalse(sampler.sample(Message.Type.track, "event", "user-" + i, null));
+      assertTrue(sampler.sample(Message.Type.page, null, "user-" + i, null));
+    }
+  }
+
+  @Test
+  public void addsTheRateToTheContext() {
+    Sampler.Rate rate = new Sampler.Rate(0.1);
+
+    Map<String, ?> empty = rate.addTo(null);
+    assertTrue(empty instanceof EncodedMap);
+    assertEquals(Collections.singletonMap(Sampler.SAMPLE_RATE_KEY, 0.1), empty);
+
+    Map<String, ?> merged = rate.addTo(Collections.singletonMap("library", "custom"));
+    assertEquals("custom", merged.get("library"));
+    assertEquals(0.1, merged.get(Sampler.SAMPLE_RATE_KEY));
+  }
+
+  @Test
+  public void keepsAnEncodedContextEncoded() {
+    Sampler.Rate rate = new Sampler.Rate(0.1);
+    EncodedMap context = EncodedMap.of(Collections.singletonMap("library", "custom"));
+
+    Map<String, ?> merged = rate.addTo(context);
+    assertTrue(merged instanceof EncodedMap);
+    assertEquals("{\"library\":\"custom\",\"sampleRate\":0.1}", ((EncodedMap) merged).json());
+    // A shared context is merged once.
+    assertSame(merged, rate.addTo(context));
+
+    EncodedMap other = EncodedMap.of(Collections.singletonMap("library", "other"));
+    assertEquals("other", rate.addTo(other).get("library"));
+  }
+
+  @Test
+  public void recordsTheRateOnSampledMessages() {
+    Sampler sampler = Sampler.builder().rate(Message.Type.track, 1e-9).build();
+    EncodedMap context = EncodedMap.of(Collections.singletonMap("library", "custom"));
+    TrackMessage.Builder builder = TrackMessage.builder("event").context(context);
+
+    Sampler.Rate rate = sampler.rate(builder);
+    builder.context(rate.addTo(builder.context()));
+
+    TrackMessage message = builder.anonymousId("anonymous").build();
+    assertTrue(message.context() instanceof EncodedMap);
+    assertEquals(1e-9, message.context().get(Sampler.SAMPLE_RATE_KEY));
+  }
+}
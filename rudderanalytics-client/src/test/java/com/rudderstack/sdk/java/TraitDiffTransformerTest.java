@@ -0,0 +1,118 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.rudderstack.sdk.java.messages.IdentifyMessage;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TraitDiffTransformerTest {
+  private final TraitDiffTransformer diff = new TraitDiffTransformer(100, 1, TimeUnit.HOURS);
+
+  @Test
+  public void sendsOnlyChangedTraitsOnceDelivered() {
+    IdentifyMessage first = transform(identify(traits("plan", "free", "seats", 1)));
+    assertEquals(traits("plan", "free", "seats", 1), first.traits());
+    diff.success(first);
+
+    IdentifyMessage second = transform(identify(traits("plan", "pro", "seats", 1)));
+    assertEquals(traits("plan", "pro"), second.traits());
+    diff.success(second);
+
+    assertFalse(diff.transform(identify(traits("plan", "pro", "seats", 1))));
+  }
+
+  @Test
+  public void keepsSendingTraitsUntilTheyAreDelivered() {
+    IdentifyMessage first = transform(identify(traits("plan", "free")));
+    // The first call has not been delivered yet, so nothing is known to be sent.
+    IdentifyMessage again = transform(identify(traits("plan", "free")));
+    assertEquals(traits("plan", "free"), again.traits());
+
+    diff.success(first);
+    IdentifyMessage changed = transform(identify(traits("plan", "pro")));
+    diff.failure(changed, new RuntimeException());
+    // The failed change is sent again, whereas an unchanged call is dropped.
+    assertEquals(traits("plan", "pro"), transform(identify(traits("plan", "pro"))).traits());
+    assertFalse(diff.transform(identify(traits("plan", "free"))));
+  }
+
+  @Test
+  public void ignoresCallsThatWereNeverUploaded() {
+    diff.success(transform(identify(traits("plan", "free"))));
+
+    // Say an interceptor dropped this one after the transformer let it through.
+    transform(identify(traits("plan", "pro")));
+
+    assertEquals(traits("plan", "pro"), transform(identify(traits("plan", "pro"))).traits());
+  }
+
+  @Test
+  public void sendsUnchangedTraitsWithOtherChanges() {
+    diff.success(transform(identify(traits("plan", "free"))));
+
+    IdentifyMessage.Builder anonymous = identify(traits("plan", "free")).anonymousId("device");
+    assertTrue(diff.transform(anonymous));
+    assertEquals(Collections.emptyMap(), anonymous.build().traits());
+
+    IdentifyMessage.Builder context =
+        identify(traits("plan", "free")).context(Collections.singletonMap("ip", "10.0.0.1"));
+    assertTrue(diff.transform(context));
+    assertEquals(Collections.emptyMap(), context.build().traits());
+
+    IdentifyMessage.Builder integrations =
+        identify(traits("plan", "free")).enableIntegration("Mixpanel", false);
+    assertTrue(diff.transform(integrations));
+    diff.success(integrations.build());
+
+    assertFalse(
+        diff.transform(identify(traits("plan", "free")).enableIntegration("Mixpanel", false)));
+  }
+
+  @Test
+  public void sendsTraitsInFullOnceExpired() {
+    TraitDiffTransformer expiring = new TraitDiffTransformer(100, 1, TimeUnit.NANOSECONDS);
+    IdentifyMessage.Builder first = identify(traits("plan", "free", "seats", 1));
+    assertTrue(expiring.transform(first));
+    expiring.success(first.build());
+
+    IdentifyMessage.Builder second = identify(traits("plan", "free", "seats", 1));
+    assertTrue(expiring.transform(second));
+    assertEquals(traits("plan", "free", "seats", 1), second.build().traits());
+  }
+
+  @Test
+  public void passesThroughCallsWithoutUserId() {
+    IdentifyMessage.Builder builder =
+        IdentifyMessage.builder().anonymousId("device").traits(traits("plan", "free"));
+    assertTrue(diff.transform(builder));
+    diff.success(builder.build());
+    assertTrue(
+        diff.transform(
+            IdentifyMessage.builder().anonymousId("device").traits(traits("plan", "free"))));
+  }
+
+  private IdentifyMessage transform(IdentifyMessage.Builder builder) {
+    assertTrue(diff.transform(builder));
+    return builder.build();
+  }
+
+  private static IdentifyMessage.Builder identify(Map<String, ?> traits) {
+    return IdentifyMessage.builder().userId("user").traits(traits);
+  }
+
+  private static Map<String, Object> traits(Object... keysAndValues) {
+    Map<String, Object> traits = new LinkedHashMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      traits.put((String) keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return traits;
+  }
+}
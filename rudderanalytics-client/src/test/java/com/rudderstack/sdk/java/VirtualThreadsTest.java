@@ -0,0 +1,148 @@
+package com.rudderstack.sdk.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import retrofit.client.Client;
+import retrofit.client.Header;
+import retrofit.client.Request;
+import retrofit.client.Response;
+import retrofit.mime.TypedByteArray;
+
+public class VirtualThreadsTest {
+  private static final String FALLBACK =
+      "DEBUG Virtual threads are not available, using platform threads.";
+
+  private final BlockingQueue<Thread> uploadThreads = new LinkedBlockingQueue<>();
+  private final BlockingQueue<Thread> callbackThreads = new LinkedBlockingQueue<>();
+  private final List<String> logs = new CopyOnWriteArrayList<>();
+  private RudderAnalytics analytics;
+
+  @After
+  public void tearDown() {
+    if (analytics != null) {
+      analytics.shutdown();
+    }
+  }
+
+  @Test
+  public void hasVirtualThreadsFromJava21() {
+    int version = javaVersion();
+    // Java 19 and 20 have them as a preview feature.
+    if (version < 19 || version >= 21) {
+      assertEquals(version >= 21, Platform.get().hasVirtualThreads());
+    }
+  }
+
+  @Test
+  public void fallsBackToPlatformThreadsBeforeJava21() throws Exception {
+    assumeFalse(Platform.get().hasVirtualThreads());
+    analytics = builder().virtualThreads(true).build();
+
+    upload();
+
+    Thread upload = uploadThreads.poll(5, TimeUnit.SECONDS);
+    assertNotNull("Nothing was uploaded", upload);
+    assertFalse(isVirtual(upload));
+    assertEquals(Platform.THREAD_NAME, upload.getName());
+    Thread callback = callbackThreads.poll(5, TimeUnit.SECONDS);
+    assertNotNull("The callback did not run", callback);
+    assertFalse(isVirtual(callback));
+    assertTrue(logs.toString(), logs.contains(FALLBACK));
+  }
+
+  @Test
+  public void runsOnVirtualThreadsFromJava21() throws Exception {
+    assumeTrue(Platform.get().hasVirtualThreads());
+    analytics = builder().virtualThreads(true).build();
+
+    upload();
+
+    Thread upload = uploadThreads.poll(5, TimeUnit.SECONDS);
+    assertNotNull("Nothing was uploaded", upload);
+    assertTrue(upload + " is not virtual", isVirtual(upload));
+    Thread callback = callbackThreads.poll(5, TimeUnit.SECONDS);
+    assertNotNull("The callback did not run", callback);
+    assertTrue(callback + " is not virtual", isVirtual(callback));
+    assertFalse(logs.toString(), logs.contains(FALLBACK));
+  }
+
+  private RudderAnalytics.Builder builder() {
+    return RudderAnalytics.builder("writeKey", "http://localhost")
+        .client(
+            new Client() {
+              @Override
+              public Response execute(Request request) throws IOException {
+                uploadThreads.add(Thread.currentThread());
+                return new Response(
+                    request.getUrl(),
+                    200,
+                    "OK",
+                    Collections.<Header>emptyList(),
+                    new TypedByteArray("application/json", "{\"response\":\"OK\"}".getBytes()));
+              }
+            })
+        .batchCallback(
+            new BatchCallback() {
+              @Override
+              public void success(Batch batch) {
+                callbackThreads.add(Thread.currentThread());
+              }
+
+              @Override
+              public void failure(Batch batch, Throwable throwable) {}
+            })
+        .log(
+            new Log() {
+              @Override
+              public void print(Level level, String format, Object... args) {
+                if (level != Level.VERBOSE) {
+                  logs.add(level + " " + String.format(format, args));
+                }
+              }
+
+              @Override
+              public void print(Level level, Throwable error, String format, Object... args) {
+                print(level, format, args);
+              }
+            })
+        .flushInterval(1, TimeUnit.HOURS);
+  }
+
+  private void upload() {
+    analytics.enqueue(TrackMessage.builder("event").userId("user"));
+    analytics.flush();
+  }
+
+  /** Calls {@code Thread.isVirtual()}, which does not exist before Java 19. */
+  private static boolean isVirtual(Thread thread) throws Exception {
+    try {
+      return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static int javaVersion() {
+    String version = System.getProperty("java.specification.version");
+    return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+  }
+}
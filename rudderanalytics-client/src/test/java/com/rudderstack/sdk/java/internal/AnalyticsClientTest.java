@@ -0,0 +1,289 @@
+package com.rudderstack.sdk.java.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.rudderstack.sdk.java.BatchCallback;
+import com.rudderstack.sdk.java.DeliveryResult;
+import com.rudderstack.sdk.java.Log;
+import com.rudderstack.sdk.java.gson.GsonCodec;
+import com.rudderstack.sdk.java.http.RudderService;
+import com.rudderstack.sdk.java.http.UploadResponse;
+import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import retrofit.mime.TypedOutput;
+
+public class AnalyticsClientTest {
+  private final BlockingQueue<Message> queue = new LinkedBlockingQueue<>();
+  private final BlockingQueue<String> bodies = new LinkedBlockingQueue<>();
+  private final CountDownLatch release = new CountDownLatch(1);
+  private ScheduledExecutorService scheduler;
+  private AnalyticsClient client;
+
+  private final RudderService service =
+      new RudderService() {
+        @Override
+        public UploadResponse upload(Batch batch) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public UploadResponse upload(TypedOutput batch) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public UploadResponse upload(String authorization, TypedOutput batch) {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          try {
+            batch.writeTo(out);
+          } catch (IOException e) {
+            throw new AssertionError(e);
+          }
+          bodies.add(out.toString());
+          return UploadResponse.create(true);
+        }
+      };
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    if (client != null) {
+      client.shutdown();
+    }
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void failsOpenBatchesOnShutdown() throws Exception {
+    client = client(10, 60000);
+    assertOpenBatchesFailOnShutdown();
+  }
+
+  @Test
+  public void failsOpenBatchesOnShutdownOnASharedScheduler() throws Exception {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    client = client(10, 60000);
+    assertOpenBatchesFailOnShutdown();
+  }
+
+  @Test
+  public void sendsAPartialBatchOnceItLingered() throws Exception {
+    client = client(10, 100);
+    assertPartialBatchLingers();
+  }
+
+  @Test
+  public void sendsAPartialBatchOnceItLingeredOnASharedScheduler() throws Exception {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    client = client(10, 100);
+    assertPartialBatchLingers();
+  }
+
+  @Test
+  public void queuesOneFlushForConcurrentFlushes() throws Exception {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    client = client(10, 60000);
+    holdScheduler();
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  try {
+                    start.await();
+                  } catch (InterruptedException e) {
+                    return;
+                  }
+                  client.flush();
+                }
+              });
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(1, queue.size());
+    assertSame(FlushMessage.POISON, queue.peek());
+  }
+
+  @Test
+  public void sendsMessagesQueuedBehindAJoinedFlush() throws Exception {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    client = client(10, 60000);
+    holdScheduler();
+    client.flush();
+    client.enqueue(track());
+    // Joins the queued flush, which has to cover the message behind it.
+    client.flush();
+    assertEquals(2, queue.size());
+
+    release.countDown();
+
+    String body = bodies.poll(5, TimeUnit.SECONDS);
+    assertNotNull("The message waited for its linger time", body);
+    assertTrue(body, body.contains("\"event\":\"event\""));
+  }
+
+  @Test
+  public void countsQueuedMessagesRatherThanEntries() throws Exception {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    client = client(10, 60000);
+    holdScheduler();
+    client.enqueueAll(Arrays.asList(track(), track(), track(), track(), track()));
+    client.enqueue(track());
+    client.flush();
+
+    assertEquals(3, queue.size());
+    assertEquals(6, client.metrics().getQueueDepth());
+
+    release.countDown();
+    awaitTaken();
+    assertEquals(0, client.metrics().getQueueDepth());
+  }
+
+  @Test
+  public void measuresAckLatencyFromEnqueuePerMessage() throws Exception {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    client = client(10, 60000);
+    holdScheduler();
+    client.enqueue(track());
+    Thread.sleep(100);
+    client.enqueueAll(Arrays.asList(track(), track()));
+    client.flush();
+
+    release.countDown();
+
+    assertNotNull(bodies.poll(5, TimeUnit.SECONDS));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (client.metrics().getAckLatencyMillis().getCount() < 3) {
+      assertTrue("Latencies not recorded", System.nanoTime() - deadline < 0);
+      Thread.sleep(1);
+    }
+    HistogramSnapshot latency = client.metrics().getAckLatencyMillis();
+    assertEquals(3, latency.getCount());
+    // The first message waited on the queue while the looper could not run.
+    assertTrue(latency.toString(), latency.getMax() >= 100);
+  }
+
+  @Test
+  public void doesNotWakeUpWhileIdle() throws Exception {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    scheduler = executor;
+    client = client(10, 50);
+    Thread.sleep(200);
+    assertEquals(0, executor.getTaskCount());
+
+    client.enqueue(track());
+    assertNotNull(bodies.poll(5, TimeUnit.SECONDS));
+    // Let the wakeup scheduled for the sent batch run out.
+    Thread.sleep(200);
+    long tasks = executor.getTaskCount();
+    Thread.sleep(500);
+
+    assertEquals(tasks, executor.getTaskCount());
+  }
+
+  private void assertPartialBatchLingers() throws Exception {
+    long start = System.nanoTime();
+    client.enqueue(track());
+
+    String body = bodies.poll(5, TimeUnit.SECONDS);
+    long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertNotNull("The partial batch was not sent", body);
+    assertTrue("Sent after " + waited + " ms", waited >= 100);
+  }
+
+  /** Keeps the shared scheduler busy, so the looper takes no turn until {@link #release}. */
+  private void holdScheduler() {
+    scheduler.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        });
+  }
+
+  private void assertOpenBatchesFailOnShutdown() throws Exception {
+    CompletableFuture<DeliveryResult> result = new CompletableFuture<>();
+    client.enqueue(track(), result);
+    awaitTaken();
+
+    client.shutdown();
+
+    DeliveryResult failed = result.get(5, TimeUnit.SECONDS);
+    assertEquals(DeliveryResult.Status.FAILED, failed.status());
+    assertTrue(failed.failure() instanceof IllegalStateException);
+    assertTrue(bodies.isEmpty());
+  }
+
+  /** Waits for the looper to take everything off the queue. */
+  private void awaitTaken() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!queue.isEmpty()) {
+      assertTrue("Messages left on the queue", System.nanoTime() - deadline < 0);
+      Thread.sleep(1);
+    }
+    // Let the looper finish adding the last message to its batch.
+    Thread.sleep(50);
+  }
+
+  private AnalyticsClient client(int flushQueueSize, long flushIntervalMillis) {
+    return new AnalyticsClient(
+        queue,
+        AnalyticsClient.batchContext(null),
+        service,
+        flushQueueSize,
+        flushIntervalMillis,
+        Log.NONE,
+        Executors.defaultThreadFactory(),
+        Executors.newSingleThreadExecutor(),
+        Collections.<BatchCallback>emptyList(),
+        Executors.newSingleThreadExecutor(),
+        GsonCodec.create(),
+        BufferPool.create(),
+        null,
+        null,
+        null,
+        scheduler,
+        null,
+        null,
+        0);
+  }
+
+  private static Message track() {
+    return TrackMessage.builder("event").userId("user").build();
+  }
+}
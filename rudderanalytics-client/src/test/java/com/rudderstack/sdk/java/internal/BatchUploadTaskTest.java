@@ -0,0 +1,170 @@
+package com.rudderstack.sdk.java.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.rudderstack.sdk.java.BatchCallback;
+import com.rudderstack.sdk.java.DeliveryResult;
+import com.rudderstack.sdk.java.Log;
+import com.rudderstack.sdk.java.gson.GsonCodec;
+import com.rudderstack.sdk.java.http.RudderService;
+import com.rudderstack.sdk.java.http.UploadResponse;
+import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+import com.segment.backo.Backo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import retrofit.RetrofitError;
+import retrofit.mime.TypedOutput;
+
+public class BatchUploadTaskTest {
+  private static final Backo NO_BACKOFF =
+      Backo.builder().base(TimeUnit.NANOSECONDS, 1).cap(TimeUnit.NANOSECONDS, 1).build();
+  private static final Backo ONE_HOUR =
+      Backo.builder().base(TimeUnit.HOURS, 1).cap(TimeUnit.HOURS, 1).build();
+
+  private final BufferPool pool = BufferPool.create();
+  private final List<String> bodies = new CopyOnWriteArrayList<>();
+  private int failuresLeft;
+  private AnalyticsClient client;
+
+  private final RudderService service =
+      new RudderService() {
+        @Override
+        public UploadResponse upload(Batch batch) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public UploadResponse upload(TypedOutput batch) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public UploadResponse upload(String authorization, TypedOutput batch) {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          try {
+            batch.writeTo(out);
+          } catch (IOException e) {
+            throw new AssertionError(e);
+          }
+          bodies.add(out.toString());
+          if (failuresLeft-- > 0) {
+            throw RetrofitError.networkError("http://localhost/v1/batch", new IOException());
+          }
+          return UploadResponse.create(true);
+        }
+      };
+
+  @Before
+  public void setUp() {
+    client =
+        new AnalyticsClient(
+            new LinkedBlockingQueue<Message>(),
+            AnalyticsClient.batchContext(null),
+            service,
+            250,
+            60000,
+            Log.NONE,
+            Executors.defaultThreadFactory(),
+            Executors.newSingleThreadExecutor(),
+            Collections.<BatchCallback>emptyList(),
+            Executors.newSingleThreadExecutor(),
+            GsonCodec.create(),
+            pool,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            0);
+  }
+
+  @After
+  public void tearDown() {
+    client.shutdown();
+  }
+
+  @Test
+  public void releasesBufferAfterRetries() throws Exception {
+    failuresLeft = 2;
+    CompletableFuture<DeliveryResult> result = new CompletableFuture<>();
+
+    new AnalyticsClient.BatchUploadTask(
+            client, NO_BACKOFF, batch(), Collections.singletonList(result))
+        .run();
+
+    assertEquals(DeliveryResult.Status.DELIVERED, result.get(5, TimeUnit.SECONDS).status());
+    assertEquals(3, bodies.size());
+    assertTrue(bodies.get(0).contains("\"event\":\"event\""));
+    assertEquals(bodies.get(0), bodies.get(2));
+    awaitNoLeaks();
+  }
+
+  @Test
+  public void returnsTheThreadWhileBackingOff() throws Exception {
+    failuresLeft = 1;
+    CompletableFuture<DeliveryResult> result = new CompletableFuture<>();
+    AnalyticsClient.BatchUploadTask task =
+        new AnalyticsClient.BatchUploadTask(
+            client, ONE_HOUR, batch(), Collections.singletonList(result));
+
+    // The retry is scheduled rather than slept through on this thread.
+    task.run();
+
+    assertEquals(1, bodies.size());
+    assertFalse(result.isDone());
+    assertNotNull(task.pendingRetry);
+  }
+
+  @Test
+  public void failsBatchBackingOffOnShutdown() throws Exception {
+    failuresLeft = Integer.MAX_VALUE;
+    CompletableFuture<DeliveryResult> result = new CompletableFuture<>();
+    AnalyticsClient.BatchUploadTask task =
+        new AnalyticsClient.BatchUploadTask(
+            client, ONE_HOUR, batch(), Collections.singletonList(result));
+    task.run();
+
+    client.shutdown();
+
+    DeliveryResult failed = result.get(5, TimeUnit.SECONDS);
+    assertEquals(DeliveryResult.Status.FAILED, failed.status());
+    assertTrue(failed.failure() instanceof IllegalStateException);
+    assertTrue(task.pendingRetry.isCancelled());
+    assertEquals(1, bodies.size());
+    awaitNoLeaks();
+  }
+
+  private static Batch batch() {
+    return Batch.create(
+        AnalyticsClient.batchContext(null),
+        Collections.<Message>singletonList(TrackMessage.builder("event").userId("user").build()));
+  }
+
+  /** Waits for the buffer to be released, which happens after the result is completed. */
+  private void awaitNoLeaks() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!pool.leaks().isEmpty() && System.nanoTime() - deadline < 0) {
+      Thread.sleep(1);
+    }
+    assertTrue("Leaked buffers: " + pool.leaks(), pool.leaks().isEmpty());
+  }
+}
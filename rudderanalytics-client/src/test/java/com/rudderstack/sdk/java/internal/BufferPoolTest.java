@@ -0,0 +1,98 @@
+package com.rudderstack.sdk.java.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class BufferPoolTest {
+  private final BufferPool pool = BufferPool.create();
+
+  @After
+  public void noLeaks() {
+    assertEquals("Leaked buffers: " + pool.leaks(), 0, pool.leaks().size());
+  }
+
+  @Test
+  public void leakDetectionIsOnInTests() {
+    PooledBuffer buffer = pool.acquire(0);
+    assertEquals(1, pool.leaks().size());
+    buffer.release();
+  }
+
+  @Test
+  public void growsAcrossSizeClasses() throws IOException {
+    assertGrows(BufferPool.create());
+  }
+
+  @Test
+  public void growsAcrossSizeClassesWithDirectBuffers() throws IOException {
+    assertGrows(BufferPool.create(8 * 1024 * 1024, true));
+  }
+
+  private static void assertGrows(BufferPool pool) throws IOException {
+    byte[] data = new byte[600 * 1024];
+    new Random(42).nextBytes(data);
+
+    PooledBuffer buffer = pool.acquire(0);
+    buffer.write(data, 0, 100);
+    buffer.write(data[100]);
+    buffer.write(data, 101, data.length - 101);
+    assertEquals(data.length, buffer.size());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    buffer.writeTo(out);
+    buffer.writeTo(out); // Retries write the same body again.
+    byte[] written = out.toByteArray();
+    byte[] second = new byte[data.length];
+    System.arraycopy(written, data.length, second, 0, data.length);
+    assertEquals(2 * data.length, written.length);
+    assertArrayEquals(data, second);
+
+    buffer.release();
+    assertTrue(pool.leaks().isEmpty());
+  }
+
+  @Test
+  public void reusesReleasedBuffers() {
+    PooledBuffer first = pool.acquire(100 * 1024);
+    first.release();
+    long pooled = pool.pooledBytes();
+    assertEquals(256 * 1024, pooled);
+
+    PooledBuffer second = pool.acquire(100 * 1024);
+    assertEquals(0, pool.pooledBytes());
+    second.release();
+    assertEquals(pooled, pool.pooledBytes());
+  }
+
+  @Test
+  public void retainsAtMostMaxPooledBytes() {
+    BufferPool pool = BufferPool.create(64 * 1024, false);
+    PooledBuffer first = pool.acquire(0);
+    PooledBuffer second = pool.acquire(0);
+    PooledBuffer large = pool.acquire(1024 * 1024);
+    large.release();
+    first.release();
+    second.release();
+    assertEquals(32 * 1024, pool.pooledBytes());
+  }
+
+  @Test
+  public void rejectsDoubleRelease() {
+    PooledBuffer buffer = pool.acquire(0);
+    buffer.release();
+    try {
+      buffer.release();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package com.rudderstack.sdk.java.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class FairExecutorTest {
+  private final List<Thread> threads = new CopyOnWriteArrayList<>();
+  private final List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+  private final StringBuffer order = new StringBuffer();
+  private final ThreadFactory threadFactory =
+      new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable);
+          thread.setDaemon(true);
+          thread.setUncaughtExceptionHandler(
+              new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread thread, Throwable e) {
+                  uncaught.add(e);
+                }
+              });
+          threads.add(thread);
+          return thread;
+        }
+      };
+  private FairExecutor executor;
+
+  @After
+  public void tearDown() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void servesLanesInTurn() throws InterruptedException {
+    executor = FairExecutor.create(1, threadFactory);
+    ExecutorService noisy = executor.lane();
+    ExecutorService quiet = executor.lane();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(6);
+
+    // Hold the only thread until both lanes have tasks waiting.
+    noisy.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            started.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              throw new AssertionError(e);
+            }
+          }
+        });
+    started.await();
+    for (int i = 0; i < 4; i++) {
+      noisy.execute(task('N', null, done));
+    }
+    for (int i = 0; i < 2; i++) {
+      quiet.execute(task('Q', null, done));
+    }
+    release.countDown();
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    // The noisy lane's backlog takes turns with the quiet lane.
+    assertEquals("NQNQNN", order.toString());
+  }
+
+  @Test
+  public void keepsItsThreadsWhenTasksThrow() throws InterruptedException {
+    executor = FairExecutor.create(1, threadFactory);
+    ExecutorService lane = executor.lane();
+    CountDownLatch done = new CountDownLatch(1);
+
+    lane.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            throw new IllegalStateException("task failed");
+          }
+        });
+    lane.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            throw new AssertionError("task failed");
+          }
+        });
+    lane.execute(task('A', null, done));
+
+    assertTrue("The thread died with its task", done.await(5, TimeUnit.SECONDS));
+    assertEquals(1, threads.size());
+    assertEquals(2, uncaught.size());
+    assertTrue(uncaught.get(0) instanceof IllegalStateException);
+    assertTrue(uncaught.get(1) instanceof AssertionError);
+  }
+
+  @Test
+  public void runsSubmittedTasksBeforeStopping() throws InterruptedException {
+    executor = FairExecutor.create(2, threadFactory);
+    ExecutorService first = executor.lane();
+    ExecutorService second = executor.lane();
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(4);
+    first.execute(task('A', release, done));
+    first.execute(task('A', null, done));
+    second.execute(task('B', release, done));
+    second.execute(task('B', null, done));
+
+    executor.shutdown();
+    assertTrue(first.isShutdown());
+    try {
+      second.execute(task('B', null, done));
+      throw new AssertionError("Accepted a task after shutdown");
+    } catch (RejectedExecutionException expected) {
+    }
+    assertFalse(first.isTerminated());
+    release.countDown();
+
+    assertTrue(first.awaitTermination(5, TimeUnit.SECONDS));
+    assertTrue(second.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(4, order.length());
+    for (Thread thread : threads) {
+      thread.join(5000);
+      assertFalse(thread.isAlive());
+    }
+  }
+
+  @Test
+  public void shutsDownOneLaneAlone() throws InterruptedException {
+    executor = FairExecutor.create(1, threadFactory);
+    ExecutorService closed = executor.lane();
+    ExecutorService open = executor.lane();
+    CountDownLatch done = new CountDownLatch(1);
+
+    closed.shutdown();
+
+    assertTrue(closed.awaitTermination(5, TimeUnit.SECONDS));
+    open.execute(task('A', null, done));
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertFalse(open.isShutdown());
+  }
+
+  private Runnable task(final char name, final CountDownLatch await, final CountDownLatch done) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (await != null) {
+            await.await();
+          }
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        order.append(name);
+        done.countDown();
+      }
+    };
+  }
+}
@@ -0,0 +1,81 @@
+package com.rudderstack.sdk.java.internal;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+public class FlushWatermarkTest {
+  private final FlushWatermark watermark = new FlushWatermark(null);
+
+  @Test
+  public void waitsForTheGapBelowOutOfOrderRangesToClose() {
+    CompletableFuture<Void> first = new CompletableFuture<>();
+    CompletableFuture<Void> second = new CompletableFuture<>();
+    watermark.await(20, first);
+    watermark.await(30, second);
+
+    watermark.done(20, 30);
+    watermark.done(10, 20);
+    assertFalse(first.isDone());
+    assertFalse(second.isDone());
+
+    watermark.done(0, 10);
+    assertTrue(first.isDone());
+    assertTrue(second.isDone());
+  }
+
+  @Test
+  public void completesWaitersAsTheWatermarkPassesThem() {
+    CompletableFuture<Void> first = new CompletableFuture<>();
+    CompletableFuture<Void> second = new CompletableFuture<>();
+    watermark.await(10, first);
+    watermark.await(25, second);
+
+    watermark.done(0, 15);
+    assertTrue(first.isDone());
+    assertFalse(second.isDone());
+
+    watermark.done(15, 25);
+    assertTrue(second.isDone());
+  }
+
+  @Test
+  public void completesWaitersThatAreAlreadySatisfied() {
+    CompletableFuture<Void> nothingBatched = new CompletableFuture<>();
+    watermark.await(0, nothingBatched);
+    assertTrue(nothingBatched.isDone());
+
+    watermark.done(0, 10);
+    CompletableFuture<Void> atTheWatermark = new CompletableFuture<>();
+    watermark.await(10, atTheWatermark);
+    assertTrue(atTheWatermark.isDone());
+  }
+
+  @Test
+  public void failsWaitingFlushesOnShutdown() throws InterruptedException {
+    CompletableFuture<Void> waiting = new CompletableFuture<>();
+    CompletableFuture<Void> satisfied = new CompletableFuture<>();
+    watermark.await(10, waiting);
+    watermark.done(10, 20);
+    IllegalStateException shutdown = new IllegalStateException("Client was shut down.");
+
+    watermark.fail(shutdown);
+    watermark.await(0, satisfied);
+
+    try {
+      waiting.get();
+      throw new AssertionError("The flush completed");
+    } catch (ExecutionException expected) {
+      assertSame(shutdown, expected.getCause());
+    }
+    assertTrue(satisfied.isDone());
+    // A batch finishing after shutdown completes nothing that already failed.
+    watermark.done(0, 10);
+    assertTrue(waiting.isCompletedExceptionally());
+  }
+}
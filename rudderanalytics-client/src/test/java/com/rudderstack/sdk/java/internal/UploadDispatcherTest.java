@@ -0,0 +1,112 @@
+package com.rudderstack.sdk.java.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class UploadDispatcherTest {
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private final StringBuffer order = new StringBuffer();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void sharesUploadsByWeight() throws InterruptedException {
+    UploadDispatcher dispatcher = new UploadDispatcher(executor, 1, 10);
+    UploadDispatcher.Lane noisy = dispatcher.lane(1);
+    UploadDispatcher.Lane quiet = dispatcher.lane(2);
+    final CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(13);
+
+    // Hold the first upload until everything else is waiting.
+    dispatcher.submit(noisy, upload('N', started, done), 10);
+    for (int i = 0; i < 9; i++) {
+      dispatcher.submit(noisy, upload('N', null, done), 10);
+    }
+    for (int i = 0; i < 3; i++) {
+      dispatcher.submit(quiet, upload('Q', null, done), 10);
+    }
+    started.countDown();
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    // The first upload started alone, so the noisy lane's first turn came after it; from then on,
+    // the quiet lane sends two batches to the noisy lane's one.
+    assertEquals("NNQQNQNNNNNNN", order.toString());
+    assertTrue(dispatcher.isIdle(noisy));
+    assertTrue(dispatcher.isIdle(quiet));
+  }
+
+  @Test
+  public void keepsUploadingWhileAnotherLaneBacksOff() throws InterruptedException {
+    final UploadDispatcher dispatcher = new UploadDispatcher(executor, 1, 10);
+    final UploadDispatcher.Lane failing = dispatcher.lane(1);
+    UploadDispatcher.Lane healthy = dispatcher.lane(1);
+    final CountDownLatch done = new CountDownLatch(5);
+
+    // Fails its first attempt, and comes back to its lane later, as a retrying batch does.
+    dispatcher.submit(
+        failing,
+        new Runnable() {
+          boolean failed;
+
+          @Override
+          public void run() {
+            if (failed) {
+              order.append('F');
+              done.countDown();
+              return;
+            }
+            failed = true;
+            order.append('f');
+            final Runnable retry = this;
+            scheduler.schedule(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    dispatcher.submit(failing, retry, 10);
+                  }
+                },
+                200,
+                TimeUnit.MILLISECONDS);
+          }
+        },
+        10);
+    for (int i = 0; i < 4; i++) {
+      dispatcher.submit(healthy, upload('H', null, done), 10);
+    }
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    // The only upload slot was free while the failing lane backed off.
+    assertEquals("fHHHHF", order.toString());
+  }
+
+  private Runnable upload(final char name, final CountDownLatch await, final CountDownLatch done) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (await != null) {
+            await.await();
+          }
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        order.append(name);
+        done.countDown();
+      }
+    };
+  }
+}
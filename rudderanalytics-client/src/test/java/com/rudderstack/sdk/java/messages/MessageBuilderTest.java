@@ -0,0 +1,100 @@
+package com.rudderstack.sdk.java.messages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class MessageBuilderTest {
+  @Test
+  public void holdsAdoptedMapsAsIs() {
+    Map<String, Object> properties = map("price", 10);
+    Map<String, Object> context = map("ip", "0.0.0.0");
+    Map<String, Object> options = map("id", "user");
+    Map<String, Object> traits = map("email", "user@example.com");
+
+    TrackMessage track =
+        TrackMessage.builder("event")
+            .adoptMaps()
+            .userId("user")
+            .properties(properties)
+            .context(context)
+            .integrationOptions("Amplitude", options)
+            .build();
+    IdentifyMessage identify =
+        IdentifyMessage.builder().adoptMaps().userId("user").traits(traits).build();
+
+    assertSame(properties, track.properties());
+    assertSame(context, track.context());
+    assertSame(options, track.integrations().get("Amplitude"));
+    assertSame(traits, identify.traits());
+  }
+
+  @Test
+  public void copiesMapsUnlessAdopting() {
+    Map<String, Object> properties = map("price", 10);
+    Map<String, Object> context = map("ip", "0.0.0.0");
+    Map<String, Object> options = map("id", "user");
+    Map<String, Object> traits = map("email", "user@example.com");
+
+    TrackMessage track =
+        TrackMessage.builder("event")
+            .userId("user")
+            .properties(properties)
+            .context(context)
+            .integrationOptions("Amplitude", options)
+            .build();
+    IdentifyMessage identify = IdentifyMessage.builder().userId("user").traits(traits).build();
+    properties.put("price", 20);
+    context.put("ip", "127.0.0.1");
+    options.put("id", "other");
+    traits.put("email", "other@example.com");
+
+    assertNotSame(properties, track.properties());
+    assertEquals(map("price", 10), track.properties());
+    assertEquals(map("ip", "0.0.0.0"), track.context());
+    assertEquals(map("id", "user"), track.integrations().get("Amplitude"));
+    assertEquals(map("email", "user@example.com"), identify.traits());
+  }
+
+  @Test
+  public void onlyAdoptsMapsPassedAfterwards() {
+    Map<String, Object> properties = map("price", 10);
+    Map<String, Object> context = map("ip", "0.0.0.0");
+
+    TrackMessage track =
+        TrackMessage.builder("event")
+            .userId("user")
+            .properties(properties)
+            .adoptMaps()
+            .context(context)
+            .build();
+
+    assertNotSame(properties, track.properties());
+    assertSame(context, track.context());
+  }
+
+  @Test
+  public void keepsBuiltIntegrationsWhenAnAdoptingBuilderIsReused() {
+    TrackMessage.Builder builder =
+        TrackMessage.builder("event").adoptMaps().userId("user").enableIntegration("All", false);
+    TrackMessage first = builder.build();
+
+    builder.enableIntegration("Amplitude", true);
+    TrackMessage second = builder.build();
+
+    assertEquals(Collections.singletonMap("All", false), first.integrations());
+    assertEquals(2, second.integrations().size());
+  }
+
+  private static Map<String, Object> map(String key, Object value) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put(key, value);
+    return map;
+  }
+}
@@ -0,0 +1,163 @@
+package com.rudderstack.sdk.java.messages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class StringCacheTest {
+  @Test
+  public void sharesOneInstancePerString() {
+    StringCache cache = new StringCache(10);
+    String first = new String("Order Completed");
+
+    assertSame(first, cache.intern(first));
+    assertSame(first, cache.intern(new String("Order Completed")));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void passesNewStringsThroughOnceFull() {
+    StringCache cache = new StringCache(2);
+    String a = cache.intern(new String("a"));
+    String b = cache.intern(new String("b"));
+    String c = new String("c");
+
+    assertSame(c, cache.intern(c));
+    assertNotSame(c, cache.intern(new String("c")));
+    assertEquals(2, cache.size());
+    // The strings it holds stay canonical.
+    assertSame(a, cache.intern(new String("a")));
+    assertSame(b, cache.intern(new String("b")));
+    assertNull(cache.encoded("c", new Quoter()));
+  }
+
+  @Test
+  public void encodesEachCachedStringOnce() {
+    StringCache cache = new StringCache(10);
+    cache.intern("event");
+    Quoter quoter = new Quoter();
+
+    assertEquals("\"event\"", cache.encoded("event", quoter));
+    assertSame(cache.encoded("event", quoter), cache.encoded(new String("event"), quoter));
+    assertEquals(1, quoter.calls);
+  }
+
+  @Test
+  public void internsMapKeysInASingleCopy() {
+    StringCache cache = new StringCache(10);
+    String price = cache.intern("price");
+    Map<String, Object> canonical = new LinkedHashMap<>();
+    canonical.put(price, 10);
+    assertSame(canonical, cache.internKeys(canonical));
+
+    String currency = cache.intern("currency");
+    Map<String, Object> properties = new LinkedHashMap<>();
+    properties.put(price, 10);
+    properties.put(new String("currency"), "USD");
+    properties.put(new String("quantity"), 2);
+    Map<String, Object> interned = cache.internKeys(properties);
+
+    assertNotSame(properties, interned);
+    assertEquals(properties, interned);
+    assertEquals(new ArrayList<>(properties.keySet()), new ArrayList<>(interned.keySet()));
+    for (String key : interned.keySet()) {
+      assertSame(key, cache.intern(new String(key)));
+    }
+    assertSame(price, interned.keySet().iterator().next());
+    assertSame(currency, new ArrayList<>(interned.keySet()).get(1));
+    try {
+      interned.put("other", 1);
+      throw new AssertionError("The copy is modifiable");
+    } catch (UnsupportedOperationException expected) {
+    }
+    // Its keys are canonical now, so the copy is used as is.
+    assertSame(interned, cache.internKeys(interned));
+  }
+
+  @Test
+  public void internsTheEventAndPropertyKeysOfABuilder() {
+    StringCache cache = new StringCache(10);
+    String event = cache.intern("Order Completed");
+    String key = cache.intern("price");
+    TrackMessage.Builder builder =
+        TrackMessage.builder(new String("Order Completed"))
+            .userId("user")
+            .properties(Collections.singletonMap(new String("price"), 10));
+
+    cache.intern(builder);
+    TrackMessage message = builder.build();
+
+    assertSame(event, message.event());
+    assertSame(key, message.properties().keySet().iterator().next());
+  }
+
+  @Test
+  public void staysBoundedAndCanonicalUnderConcurrentUse() throws InterruptedException {
+    final int maxSize = 50;
+    final int distinct = 200;
+    final StringCache cache = new StringCache(maxSize);
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final int offset = t * 37;
+      Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  try {
+                    start.await();
+                  } catch (InterruptedException e) {
+                    return;
+                  }
+                  for (int i = 0; i < distinct; i++) {
+                    cache.intern(new String("key-" + (i + offset) % distinct));
+                  }
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(maxSize, cache.size());
+    Set<String> canonical = Collections.newSetFromMap(new IdentityHashMap<String, Boolean>());
+    for (int i = 0; i < distinct; i++) {
+      String value = "key-" + i;
+      String interned = cache.intern(new String(value));
+      if (interned == cache.intern(new String(value))) {
+        canonical.add(interned);
+      }
+    }
+    assertEquals(maxSize, canonical.size());
+    assertTrue(cache.size() <= maxSize);
+  }
+
+  /** Quotes strings, counting its calls. */
+  static final class Quoter implements StringCache.Encoder<String> {
+    int calls;
+
+    @Override
+    public String encode(String value) {
+      calls++;
+      return '"' + value + '"';
+    }
+  }
+}
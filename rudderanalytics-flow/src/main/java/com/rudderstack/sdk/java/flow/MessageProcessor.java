@@ -0,0 +1,253 @@
+package com.rudderstack.sdk.java.flow;
+
+import com.rudderstack.sdk.java.DeliveryResult;
+import com.rudderstack.sdk.java.Log;
+import com.rudderstack.sdk.java.RudderAnalytics;
+import com.rudderstack.sdk.java.messages.MessageBuilder;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * Submits the messages it receives, keeping at most {@code maxPending} of them unresolved, and
+ * publishes their results if it {@code publishes}. A message stays pending until its result is
+ * published, or until it completes if results are not published. Errors go to the result
+ * subscriber if there is one, and to the client's {@link Log} otherwise.
+ */
+final class MessageProcessor
+    implements Flow.Processor<MessageBuilder<?, ?>, DeliveryResult>,
+        BiConsumer<DeliveryResult, Throwable> {
+  private final RudderAnalytics analytics;
+  private final int maxPending;
+  /** How many released messages to ask upstream for at once. */
+  private final int requestBatch;
+  private final boolean publishes;
+
+  private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+  private final AtomicInteger pending = new AtomicInteger();
+  /** Messages released since upstream was last asked for more. */
+  private final AtomicInteger released = new AtomicInteger();
+  private volatile boolean done;
+  private volatile Throwable error;
+
+  private final AtomicReference<Flow.Subscriber<? super DeliveryResult>> downstream =
+      new AtomicReference<>();
+  private final Queue<DeliveryResult> results = new ConcurrentLinkedQueue<>();
+  private final AtomicLong demand = new AtomicLong();
+  private final AtomicInteger wip = new AtomicInteger();
+  private volatile boolean cancelled;
+  /** Set if the downstream broke the protocol, to fail it with. */
+  private volatile Throwable invalid;
+  /** Only accessed in {@link #drain()}. */
+  private boolean terminated;
+
+  MessageProcessor(RudderAnalytics analytics, int maxPending, boolean publishes) {
+    if (analytics == null) {
+      throw new NullPointerException("Null analytics");
+    }
+    if (maxPending < 1) {
+      throw new IllegalArgumentException("maxPending must be positive.");
+    }
+    this.analytics = analytics;
+    this.maxPending = maxPending;
+    this.requestBatch = Math.max(1, maxPending / 4);
+    this.publishes = publishes;
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (subscription == null) {
+      throw new NullPointerException("Null subscription");
+    }
+    if (!upstream.compareAndSet(null, subscription)) {
+      subscription.cancel();
+      return;
+    }
+    subscription.request(maxPending);
+  }
+
+  @Override
+  public void onNext(MessageBuilder<?, ?> builder) {
+    if (builder == null) {
+      throw new NullPointerException("Null builder");
+    }
+    if (done) {
+      return;
+    }
+    pending.incrementAndGet();
+    CompletableFuture<DeliveryResult> result;
+    try {
+      result = analytics.submit(builder);
+    } catch (RuntimeException e) {
+      // An invalid message, which the upstream cannot recover from.
+      pending.decrementAndGet();
+      upstream.get().cancel();
+      if (!publishes) {
+        analytics
+            .log()
+            .print(
+                Log.Level.ERROR, e, "Could not enqueue %s. Cancelled the subscription.", builder);
+      }
+      terminate(e);
+      return;
+    }
+    result.whenComplete(this);
+  }
+
+  /** Receives the result of each message. */
+  @Override
+  public void accept(DeliveryResult result, Throwable failure) {
+    if (publishes && !cancelled && result != null) {
+      results.add(result);
+      drain();
+    } else {
+      release(1);
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    if (throwable == null) {
+      throw new NullPointerException("Null throwable");
+    }
+    if (!publishes) {
+      analytics.log().print(Log.Level.ERROR, throwable, "Publisher failed.");
+    }
+    terminate(throwable);
+  }
+
+  /** Ends the stream with {@code failure}, once the pending results are out. */
+  private void terminate(Throwable failure) {
+    error = failure;
+    done = true;
+    drain();
+  }
+
+  @Override
+  public void onComplete() {
+    done = true;
+    drain();
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super DeliveryResult> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("Null subscriber");
+    }
+    if (!publishes || !downstream.compareAndSet(null, subscriber)) {
+      subscriber.onSubscribe(
+          new Flow.Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {}
+          });
+      subscriber.onError(new IllegalStateException("Only one subscriber is supported."));
+      return;
+    }
+    subscriber.onSubscribe(
+        new Flow.Subscription() {
+          @Override
+          public void request(long n) {
+            if (n <= 0) {
+              invalid = new IllegalArgumentException("Requested " + n + " results (rule 3.9).");
+              cancelUpstream();
+            } else {
+              long current;
+              long next;
+              do {
+                current = demand.get();
+                if (current == Long.MAX_VALUE) {
+                  break;
+                }
+                next = current + n;
+                if (next < 0) {
+                  next = Long.MAX_VALUE; // Unbounded.
+                }
+              } while (!demand.compareAndSet(current, next));
+            }
+            drain();
+          }
+
+          @Override
+          public void cancel() {
+            cancelled = true;
+            cancelUpstream();
+            drain();
+          }
+        });
+    drain();
+  }
+
+  private void cancelUpstream() {
+    Flow.Subscription subscription = upstream.get();
+    if (subscription != null) {
+      subscription.cancel();
+    }
+  }
+
+  /** Lets upstream send {@code count} more messages, in batches of {@link #requestBatch}. */
+  private void release(int count) {
+    pending.addAndGet(-count);
+    Flow.Subscription subscription = upstream.get();
+    if (done || subscription == null) {
+      return;
+    }
+    int credits = released.addAndGet(count);
+    if (credits >= requestBatch && released.compareAndSet(credits, 0)) {
+      subscription.request(credits);
+    }
+  }
+
+  /** Publishes the results there is demand for, and the end of the stream once all are out. */
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      Flow.Subscriber<? super DeliveryResult> subscriber = downstream.get();
+      if (subscriber != null && !terminated) {
+        if (cancelled) {
+          terminated = true;
+          results.clear();
+        } else if (invalid != null) {
+          terminated = true;
+          results.clear();
+          subscriber.onError(invalid);
+        } else {
+          long requested = demand.get();
+          long emitted = 0;
+          DeliveryResult result;
+          while (emitted != requested && (result = results.poll()) != null) {
+            subscriber.onNext(result);
+            emitted++;
+          }
+          if (emitted > 0) {
+            if (requested != Long.MAX_VALUE) {
+              demand.addAndGet(-emitted);
+            }
+            release((int) emitted);
+          }
+          // Read done first: once it is set, pending can only go down.
+          if (done && pending.get() == 0) {
+            terminated = true;
+            Throwable failure = error;
+            if (failure == null) {
+              subscriber.onComplete();
+            } else {
+              subscriber.onError(failure);
+            }
+          }
+        }
+      }
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+}
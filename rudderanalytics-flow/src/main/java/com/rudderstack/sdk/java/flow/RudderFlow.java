@@ -0,0 +1,70 @@
+package com.rudderstack.sdk.java.flow;
+
+import com.rudderstack.sdk.java.DeliveryResult;
+import com.rudderstack.sdk.java.RudderAnalytics;
+import com.rudderstack.sdk.java.messages.MessageBuilder;
+import java.util.concurrent.Flow;
+
+/**
+ * Adapters that feed {@link RudderAnalytics} from reactive pipelines without breaking their
+ * backpressure. The adapters request messages from upstream only while fewer than {@code maxPending}
+ * of them are waiting for their {@link DeliveryResult}, so a pipeline producing faster than the data
+ * plane accepts slows down instead of filling the client's queue.
+ *
+ * <p>By default, {@code maxPending} is what the client holds at full speed: twice its {@linkplain
+ * RudderAnalytics#flushQueueSize() flush queue size} times its {@linkplain
+ * RudderAnalytics#maxUploadsInFlight() maximum uploads in flight}, so that the next batches fill
+ * while the previous ones upload. A client with no limit on uploads counts as having one.
+ *
+ * <pre>{@code
+ * events.map(event -> TrackMessage.builder(event.name()).userId(event.userId()))
+ *     .subscribe(RudderFlow.subscriber(analytics));
+ * }</pre>
+ */
+public final class RudderFlow {
+  private RudderFlow() {}
+
+  /**
+   * Returns a subscriber that enqueues the messages it receives on {@code analytics}, with the
+   * default {@code maxPending}.
+   */
+  public static Flow.Subscriber<MessageBuilder<?, ?>> subscriber(RudderAnalytics analytics) {
+    return subscriber(analytics, defaultMaxPending(analytics));
+  }
+
+  /** Returns a subscriber that enqueues the messages it receives on {@code analytics}. */
+  public static Flow.Subscriber<MessageBuilder<?, ?>> subscriber(
+      RudderAnalytics analytics, int maxPending) {
+    return new MessageProcessor(analytics, maxPending, false);
+  }
+
+  /**
+   * Returns a processor as with {@link #processor(RudderAnalytics, int)}, with the default {@code
+   * maxPending}.
+   */
+  public static Flow.Processor<MessageBuilder<?, ?>, DeliveryResult> processor(
+      RudderAnalytics analytics) {
+    return processor(analytics, defaultMaxPending(analytics));
+  }
+
+  /**
+   * Returns a processor that enqueues the messages it receives on {@code analytics}, and publishes
+   * their {@link DeliveryResult}s in the order they complete. Results count as pending until they
+   * are published, so a slow result subscriber slows down the upstream as well. It takes a single
+   * subscriber, which should subscribe before the processor subscribes upstream.
+   */
+  public static Flow.Processor<MessageBuilder<?, ?>, DeliveryResult> processor(
+      RudderAnalytics analytics, int maxPending) {
+    return new MessageProcessor(analytics, maxPending, true);
+  }
+
+  /** Returns twice the flush queue size of {@code analytics} times its uploads in flight. */
+  static int defaultMaxPending(RudderAnalytics analytics) {
+    if (analytics == null) {
+      throw new NullPointerException("Null analytics");
+    }
+    long maxPending =
+        2L * analytics.flushQueueSize() * Math.max(1, analytics.maxUploadsInFlight());
+    return (int) Math.min(Integer.MAX_VALUE, maxPending);
+  }
+}
@@ -0,0 +1,189 @@
+package com.rudderstack.sdk.java.flow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.rudderstack.sdk.java.DeliveryResult;
+import com.rudderstack.sdk.java.Log;
+import com.rudderstack.sdk.java.RudderAnalytics;
+import com.rudderstack.sdk.java.messages.MessageBuilder;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit.client.Client;
+import retrofit.client.Header;
+import retrofit.client.Request;
+import retrofit.client.Response;
+import retrofit.mime.TypedByteArray;
+
+public class RudderFlowTest {
+  private static final int MAX_PENDING = 20;
+
+  private final CountDownLatch uploadsAllowed = new CountDownLatch(1);
+  private final List<Throwable> logged = new CopyOnWriteArrayList<>();
+  private RudderAnalytics analytics;
+
+  @Before
+  public void setUp() {
+    Client client =
+        new Client() {
+          @Override
+          public Response execute(Request request) {
+            try {
+              uploadsAllowed.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return new Response(
+                request.getUrl(),
+                200,
+                "OK",
+                Collections.<Header>emptyList(),
+                new TypedByteArray("application/json", "{\"response\":\"OK\"}".getBytes()));
+          }
+        };
+    analytics =
+        RudderAnalytics.builder("writeKey", "http://localhost")
+            .client(client)
+            .flushQueueSize(10)
+            .log(
+                new Log() {
+                  @Override
+                  public void print(Level level, String format, Object... args) {}
+
+                  @Override
+                  public void print(Level level, Throwable error, String format, Object... args) {
+                    if (level == Level.ERROR) {
+                      logged.add(error);
+                    }
+                  }
+                })
+            .build();
+  }
+
+  @After
+  public void tearDown() {
+    uploadsAllowed.countDown();
+    analytics.shutdown();
+  }
+
+  @Test
+  public void requestsMoreOnlyAsResultsArePublished() throws InterruptedException {
+    Flow.Processor<MessageBuilder<?, ?>, DeliveryResult> processor =
+        RudderFlow.processor(analytics, MAX_PENDING);
+    final List<DeliveryResult> results = new CopyOnWriteArrayList<>();
+    final CountDownLatch completed = new CountDownLatch(1);
+    processor.subscribe(
+        new Flow.Subscriber<DeliveryResult>() {
+          @Override
+          public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+          }
+
+          @Override
+          public void onNext(DeliveryResult item) {
+            results.add(item);
+          }
+
+          @Override
+          public void onError(Throwable throwable) {}
+
+          @Override
+          public void onComplete() {
+            completed.countDown();
+          }
+        });
+    final AtomicLong requested = new AtomicLong();
+    processor.onSubscribe(
+        new Flow.Subscription() {
+          @Override
+          public void request(long n) {
+            requested.addAndGet(n);
+          }
+
+          @Override
+          public void cancel() {}
+        });
+    assertEquals(MAX_PENDING, requested.get());
+
+    for (int i = 0; i < MAX_PENDING; i++) {
+      processor.onNext(TrackMessage.builder("event").userId("user"));
+    }
+    analytics.flush();
+    Thread.sleep(100);
+    // Uploads are stuck, so nothing more is requested.
+    assertEquals(MAX_PENDING, requested.get());
+    assertTrue(results.isEmpty());
+
+    uploadsAllowed.countDown();
+    processor.onComplete();
+    assertTrue(completed.await(5, TimeUnit.SECONDS));
+    assertEquals(MAX_PENDING, results.size());
+    for (DeliveryResult result : results) {
+      assertTrue(result.isDelivered());
+    }
+  }
+
+  @Test
+  public void defaultsToWhatTheClientHoldsAtFullSpeed() {
+    assertEquals(10, analytics.flushQueueSize());
+    // The default network executor has a single thread.
+    assertEquals(1, analytics.maxUploadsInFlight());
+    final AtomicLong requested = new AtomicLong();
+    Flow.Subscription subscription =
+        new Flow.Subscription() {
+          @Override
+          public void request(long n) {
+            requested.addAndGet(n);
+          }
+
+          @Override
+          public void cancel() {}
+        };
+
+    RudderFlow.subscriber(analytics).onSubscribe(subscription);
+    assertEquals(2 * 10, requested.get());
+
+    requested.set(0);
+    RudderFlow.processor(analytics).onSubscribe(subscription);
+    assertEquals(2 * 10, requested.get());
+  }
+
+  @Test
+  public void logsErrorsItHasNoSubscriberFor() {
+    Flow.Subscriber<MessageBuilder<?, ?>> subscriber =
+        RudderFlow.subscriber(analytics, MAX_PENDING);
+    final AtomicBoolean cancelled = new AtomicBoolean();
+    subscriber.onSubscribe(
+        new Flow.Subscription() {
+          @Override
+          public void request(long n) {}
+
+          @Override
+          public void cancel() {
+            cancelled.set(true);
+          }
+        });
+
+    // Neither a user ID nor an anonymous ID, so the message cannot be built.
+    subscriber.onNext(TrackMessage.builder("event"));
+
+    assertTrue(cancelled.get());
+    assertEquals(1, logged.size());
+    assertTrue(logged.get(0) instanceof RuntimeException);
+
+    IllegalStateException failure = new IllegalStateException("publisher failed");
+    RudderFlow.subscriber(analytics, MAX_PENDING).onError(failure);
+    assertSame(failure, logged.get(1));
+  }
+}
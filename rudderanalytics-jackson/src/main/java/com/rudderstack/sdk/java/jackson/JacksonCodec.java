@@ -0,0 +1,279 @@
+package com.rudderstack.sdk.java.jackson;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.rudderstack.sdk.java.gson.Iso8601Utils;
+import com.rudderstack.sdk.java.http.JsonCodec;
+import com.rudderstack.sdk.java.http.UploadResponse;
+import com.rudderstack.sdk.java.messages.AliasMessage;
+import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.EncodedMap;
+import com.rudderstack.sdk.java.messages.GroupMessage;
+import com.rudderstack.sdk.java.messages.IdentifyMessage;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.PageMessage;
+import com.rudderstack.sdk.java.messages.ScreenMessage;
+import com.rudderstack.sdk.java.messages.StringCache;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link JsonCodec} that writes batches with Jackson's streaming generator, straight to UTF-8
+ * bytes and without reflection.
+ *
+ * <p>The output is equivalent to the default Gson codec for messages built with the SDK's
+ * builders. Values in user supplied maps may be maps, iterables, arrays, strings, numbers,
+ * booleans, characters, enums and dates; any other value is written as its {@code toString()}.
+ * An {@link EncodedMap} is written from the JSON Gson encoded it to when it was created.
+ *
+ * <p>When given a {@link StringCache}, event names, page and screen names and top level property
+ * and trait keys found in the cache are written from their cached, pre-escaped UTF-8 form.
+ *
+ * <pre>{@code
+ * RudderAnalytics analytics = RudderAnalytics.builder(writeKey, dataPlaneUrl)
+ *     .codec(new JacksonCodec())
+ *     .build();
+ * }</pre>
+ */
+public final class JacksonCodec implements JsonCodec {
+  private static final StringCache.Encoder<SerializableString> SERIALIZED_STRING =
+      new StringCache.Encoder<SerializableString>() {
+        @Override
+        public SerializableString encode(String value) {
+          SerializedString serialized = new SerializedString(value);
+          serialized.asQuotedUTF8(); // Escape eagerly, it is what the cache is for.
+          return serialized;
+        }
+      };
+
+  private final JsonFactory factory;
+  private final StringCache stringCache;
+
+  public JacksonCodec() {
+    this(null);
+  }
+
+  /** Creates a codec that writes strings held by {@code stringCache} from their cached form. */
+  public JacksonCodec(StringCache stringCache) {
+    this.stringCache = stringCache;
+    factory = new JsonFactory();
+    factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    factory.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+  }
+
+  @Override
+  public void encode(Batch batch, OutputStream out) throws IOException {
+    JsonGenerator generator = factory.createGenerator(out, JsonEncoding.UTF8);
+    try {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("batch");
+      List<Message> messages = batch.batch();
+      for (int i = 0, size = messages.size(); i < size; i++) {
+        writeMessage(generator, messages.get(i));
+      }
+      generator.writeEndArray();
+      generator.writeStringField("sentAt", Iso8601Utils.format(batch.sentAt()));
+      writeMapField(generator, "context", batch.context());
+      generator.writeNumberField("sequence", batch.sequence());
+      generator.writeEndObject();
+    } finally {
+      generator.close();
+    }
+  }
+
+  @Override
+  public UploadResponse decodeResponse(InputStream in) throws IOException {
+    JsonParser parser = factory.createParser(in);
+    try {
+      boolean success = false;
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Expected an object but was " + parser.getCurrentToken());
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        JsonToken value = parser.nextToken();
+        if ("success".equals(name) && value.isBoolean()) {
+          success = parser.getBooleanValue();
+        } else {
+          parser.skipChildren();
+        }
+      }
+      return UploadResponse.create(success);
+    } finally {
+      parser.close();
+    }
+  }
+
+  private void writeMessage(JsonGenerator generator, Message message) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("type", message.type().name());
+    generator.writeStringField("messageId", message.messageId());
+    generator.writeStringField("timestamp", Iso8601Utils.format(message.timestamp()));
+    writeMapField(generator, "context", message.context());
+    writeStringField(generator, "anonymousId", message.anonymousId());
+    writeStringField(generator, "userId", message.userId());
+    writeMapField(generator, "integrations", message.integrations());
+    switch (message.type()) {
+      case alias:
+        writeStringField(generator, "previousId", ((AliasMessage) message).previousId());
+        break;
+      case group:
+        GroupMessage group = (GroupMessage) message;
+        writeStringField(generator, "groupId", group.groupId());
+        writeCachedMapField(generator, "traits", group.traits());
+        break;
+      case identify:
+        writeCachedMapField(generator, "traits", ((IdentifyMessage) message).traits());
+        break;
+      case screen:
+        ScreenMessage screen = (ScreenMessage) message;
+        writeCachedStringField(generator, "name", screen.name());
+        writeCachedMapField(generator, "properties", screen.properties());
+        break;
+      case page:
+        PageMessage page = (PageMessage) message;
+        writeCachedStringField(generator, "name", page.name());
+        writeCachedMapField(generator, "properties", page.properties());
+        break;
+      case track:
+        TrackMessage track = (TrackMessage) message;
+        writeCachedStringField(generator, "event", track.event());
+        writeCachedMapField(generator, "properties", track.properties());
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown payload type: " + message.type());
+    }
+    generator.writeEndObject();
+  }
+
+  private static void writeStringField(JsonGenerator generator, String name, String value)
+      throws IOException {
+    if (value != null) {
+      generator.writeStringField(name, value);
+    }
+  }
+
+  private void writeCachedStringField(JsonGenerator generator, String name, String value)
+      throws IOException {
+    SerializableString cached = cached(value);
+    if (cached == null) {
+      writeStringField(generator, name, value);
+    } else {
+      generator.writeFieldName(name);
+      generator.writeString(cached);
+    }
+  }
+
+  /** Writes a map field whose keys are looked up in the string cache. */
+  private void writeCachedMapField(JsonGenerator generator, String name, Map<String, ?> value)
+      throws IOException {
+    if (stringCache == null || value == null || value instanceof EncodedMap) {
+      writeMapField(generator, name, value);
+      return;
+    }
+    generator.writeFieldName(name);
+    generator.writeStartObject();
+    for (Map.Entry<String, ?> entry : value.entrySet()) {
+      Object entryValue = entry.getValue();
+      if (entryValue != null) {
+        String key = entry.getKey();
+        SerializableString cached = cached(key);
+        if (cached == null) {
+          generator.writeFieldName(key);
+        } else {
+          generator.writeFieldName(cached);
+        }
+        writeValue(generator, entryValue);
+      }
+    }
+    generator.writeEndObject();
+  }
+
+  private SerializableString cached(String value) {
+    if (stringCache == null || value == null) {
+      return null;
+    }
+    return stringCache.encoded(value, SERIALIZED_STRING);
+  }
+
+  private static void writeMapField(JsonGenerator generator, String name, Map<String, ?> value)
+      throws IOException {
+    if (value != null) {
+      generator.writeFieldName(name);
+      writeValue(generator, value);
+    }
+  }
+
+  private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else if (value instanceof String) {
+      generator.writeString((String) value);
+    } else if (value instanceof Number) {
+      writeNumber(generator, (Number) value);
+    } else if (value instanceof Boolean) {
+      generator.writeBoolean((Boolean) value);
+    } else if (value instanceof EncodedMap) {
+      generator.writeRawValue(((EncodedMap) value).json());
+    } else if (value instanceof Map) {
+      generator.writeStartObject();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        Object entryValue = entry.getValue();
+        if (entryValue != null) { // Gson drops null map values.
+          generator.writeFieldName(String.valueOf(entry.getKey()));
+          writeValue(generator, entryValue);
+        }
+      }
+      generator.writeEndObject();
+    } else if (value instanceof Iterable) {
+      generator.writeStartArray();
+      for (Object element : (Iterable<?>) value) {
+        writeValue(generator, element);
+      }
+      generator.writeEndArray();
+    } else if (value.getClass().isArray()) {
+      generator.writeStartArray();
+      for (int i = 0, length = Array.getLength(value); i < length; i++) {
+        writeValue(generator, Array.get(value, i));
+      }
+      generator.writeEndArray();
+    } else if (value instanceof Date) {
+      generator.writeString(Iso8601Utils.format((Date) value));
+    } else if (value instanceof Enum) {
+      generator.writeString(((Enum<?>) value).name());
+    } else {
+      generator.writeString(value.toString());
+    }
+  }
+
+  private static void writeNumber(JsonGenerator generator, Number value) throws IOException {
+    if (value instanceof Integer || value instanceof Long || value instanceof Short
+        || value instanceof Byte) {
+      generator.writeNumber(value.longValue());
+    } else if (value instanceof Double) {
+      generator.writeNumber(value.doubleValue());
+    } else if (value instanceof Float) {
+      generator.writeNumber(value.floatValue());
+    } else if (value instanceof BigDecimal) {
+      generator.writeNumber((BigDecimal) value);
+    } else if (value instanceof BigInteger) {
+      generator.writeNumber((BigInteger) value);
+    } else {
+      generator.writeNumber(value.toString());
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.rudderstack.sdk.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.rudderstack.sdk.java.Backoff")
+@Label("Upload Backoff")
+@Category({"Rudder", "Analytics"})
+@Description("A failed batch upload scheduled to be retried after a delay.")
+final class BackoffEvent extends jdk.jfr.Event {
+  @Label("Sequence")
+  int sequence;
+
+  @Label("Attempt")
+  int attempt;
+
+  @Label("Delay")
+  @Timespan(Timespan.MILLISECONDS)
+  long delay;
+}
@@ -0,0 +1,23 @@
+package com.rudderstack.sdk.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.rudderstack.sdk.java.BatchEncoded")
+@Label("Batch Encoded")
+@Category({"Rudder", "Analytics"})
+@Description("A batch of messages encoded for upload. Size is -1 if encoding failed.")
+final class BatchEncodedEvent extends jdk.jfr.Event {
+  @Label("Sequence")
+  int sequence;
+
+  @Label("Messages")
+  int messages;
+
+  @Label("Size")
+  @DataAmount
+  int bytes;
+}
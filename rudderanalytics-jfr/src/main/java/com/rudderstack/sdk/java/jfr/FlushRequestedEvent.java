@@ -0,0 +1,15 @@
+package com.rudderstack.sdk.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.rudderstack.sdk.java.FlushRequested")
+@Label("Flush Requested")
+@Category({"Rudder", "Analytics"})
+@Description("A flush of the message queue, and whether the caller waits for it.")
+final class FlushRequestedEvent extends jdk.jfr.Event {
+  @Label("Awaited")
+  boolean awaited;
+}
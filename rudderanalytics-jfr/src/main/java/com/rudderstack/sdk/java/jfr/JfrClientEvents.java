@@ -0,0 +1,108 @@
+package com.rudderstack.sdk.java.jfr;
+
+import com.rudderstack.sdk.java.internal.ClientEvents;
+import com.rudderstack.sdk.java.messages.Batch;
+
+import jdk.jfr.EventType;
+
+/**
+ * Records a client's pipeline as Java Flight Recorder events, in the "Rudder / Analytics"
+ * category. Having this module on the class path is enough, since clients load it as a {@link
+ * java.util.ServiceLoader} provider.
+ *
+ * <p>Nothing is allocated for event types that are not enabled in a running recording. Encodes and
+ * uploads are timed events spanning begin and end calls, which the client makes on the same
+ * thread, so the event in progress is kept in a thread local. A backoff is recorded when it is
+ * scheduled, with its delay, since the retry may run on another thread.
+ */
+public final class JfrClientEvents extends ClientEvents {
+  private static final EventType ENCODE = EventType.getEventType(BatchEncodedEvent.class);
+  private static final EventType UPLOAD = EventType.getEventType(UploadEvent.class);
+  private static final EventType BACKOFF = EventType.getEventType(BackoffEvent.class);
+  private static final EventType DROPPED = EventType.getEventType(MessagesDroppedEvent.class);
+  private static final EventType FLUSH = EventType.getEventType(FlushRequestedEvent.class);
+
+  private final ThreadLocal<BatchEncodedEvent> encoding = new ThreadLocal<>();
+  private final ThreadLocal<UploadEvent> uploading = new ThreadLocal<>();
+
+  @Override
+  public void beginEncode(Batch batch) {
+    if (ENCODE.isEnabled()) {
+      BatchEncodedEvent event = new BatchEncodedEvent();
+      event.begin();
+      encoding.set(event);
+    }
+  }
+
+  @Override
+  public void endEncode(Batch batch, int bytes) {
+    BatchEncodedEvent event = encoding.get();
+    if (event == null) {
+      return;
+    }
+    encoding.remove();
+    event.end();
+    if (event.shouldCommit()) {
+      event.sequence = batch.sequence();
+      event.messages = batch.batch().size();
+      event.bytes = bytes;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void beginUpload(Batch batch, int attempt) {
+    if (UPLOAD.isEnabled()) {
+      UploadEvent event = new UploadEvent();
+      event.begin();
+      uploading.set(event);
+    }
+  }
+
+  @Override
+  public void endUpload(Batch batch, int attempt, int status) {
+    UploadEvent event = uploading.get();
+    if (event == null) {
+      return;
+    }
+    uploading.remove();
+    event.end();
+    if (event.shouldCommit()) {
+      event.sequence = batch.sequence();
+      event.messages = batch.batch().size();
+      event.attempt = attempt;
+      event.status = status;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void backingOff(Batch batch, int attempt, long delayMillis) {
+    if (BACKOFF.isEnabled()) {
+      BackoffEvent event = new BackoffEvent();
+      event.sequence = batch.sequence();
+      event.attempt = attempt;
+      event.delay = delayMillis;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void messagesDropped(String cause, int count) {
+    if (DROPPED.isEnabled()) {
+      MessagesDroppedEvent event = new MessagesDroppedEvent();
+      event.cause = cause;
+      event.count = count;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void flushRequested(boolean awaited) {
+    if (FLUSH.isEnabled()) {
+      FlushRequestedEvent event = new FlushRequestedEvent();
+      event.awaited = awaited;
+      event.commit();
+    }
+  }
+}
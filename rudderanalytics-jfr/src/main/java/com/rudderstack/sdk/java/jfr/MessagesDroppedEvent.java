@@ -0,0 +1,18 @@
+package com.rudderstack.sdk.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.rudderstack.sdk.java.MessagesDropped")
+@Label("Messages Dropped")
+@Category({"Rudder", "Analytics"})
+@Description("Messages dropped by the client before being uploaded.")
+final class MessagesDroppedEvent extends jdk.jfr.Event {
+  @Label("Cause")
+  String cause;
+
+  @Label("Count")
+  int count;
+}
@@ -0,0 +1,24 @@
+package com.rudderstack.sdk.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.rudderstack.sdk.java.Upload")
+@Label("Upload Attempt")
+@Category({"Rudder", "Analytics"})
+@Description("An attempt to upload a batch. Status is -1 if there was no HTTP response.")
+final class UploadEvent extends jdk.jfr.Event {
+  @Label("Sequence")
+  int sequence;
+
+  @Label("Messages")
+  int messages;
+
+  @Label("Attempt")
+  int attempt;
+
+  @Label("Status")
+  int status;
+}
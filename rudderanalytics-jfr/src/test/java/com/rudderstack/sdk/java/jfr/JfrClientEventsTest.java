@@ -0,0 +1,111 @@
+package com.rudderstack.sdk.java.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.rudderstack.sdk.java.MessageInterceptor;
+import com.rudderstack.sdk.java.RudderAnalytics;
+import com.rudderstack.sdk.java.Sampler;
+import com.rudderstack.sdk.java.internal.ClientEvents;
+import com.rudderstack.sdk.java.messages.Batch;
+import com.rudderstack.sdk.java.messages.IdentifyMessage;
+import com.rudderstack.sdk.java.messages.Message;
+import com.rudderstack.sdk.java.messages.TrackMessage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+public class JfrClientEventsTest {
+  @Test
+  public void isLoadedAsProvider() {
+    ClientEvents events = ServiceLoader.load(ClientEvents.class).iterator().next();
+    assertTrue(events instanceof JfrClientEvents);
+  }
+
+  @Test
+  public void recordsEvents() throws Exception {
+    Batch batch =
+        Batch.create(
+            Collections.<String, Object>emptyMap(),
+            Collections.<Message>singletonList(TrackMessage.builder("event").userId("user").build()));
+    JfrClientEvents events = new JfrClientEvents();
+    Path file = Files.createTempFile("rudder", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("com.rudderstack.sdk.java.BatchEncoded");
+      recording.enable("com.rudderstack.sdk.java.Upload");
+      recording.enable("com.rudderstack.sdk.java.MessagesDropped");
+      recording.start();
+      events.beginEncode(batch);
+      events.endEncode(batch, 123);
+      events.beginUpload(batch, 2);
+      events.endUpload(batch, 2, 503);
+      events.messagesDropped("duplicate", 1);
+      recording.stop();
+      recording.dump(file);
+    }
+
+    List<RecordedEvent> recorded = RecordingFile.readAllEvents(file);
+    Files.delete(file);
+    assertEquals(3, recorded.size());
+    for (RecordedEvent event : recorded) {
+      switch (event.getEventType().getName()) {
+        case "com.rudderstack.sdk.java.BatchEncoded":
+          assertEquals(batch.sequence(), event.getInt("sequence"));
+          assertEquals(1, event.getInt("messages"));
+          assertEquals(123, event.getInt("bytes"));
+          break;
+        case "com.rudderstack.sdk.java.Upload":
+          assertEquals(2, event.getInt("attempt"));
+          assertEquals(503, event.getInt("status"));
+          break;
+        default:
+          assertEquals("duplicate", event.getString("cause"));
+      }
+    }
+  }
+
+  @Test
+  public void recordsSampledAndFilteredDrops() throws Exception {
+    RudderAnalytics analytics =
+        RudderAnalytics.builder("writeKey", "http://localhost")
+            .flushInterval(1, TimeUnit.HOURS)
+            .sampler(Sampler.builder().rate(Message.Type.track, 0).build())
+            .messageInterceptor(
+                new MessageInterceptor() {
+                  @Override
+                  public Message intercept(Message message) {
+                    return null;
+                  }
+                })
+            .build();
+    Path file = Files.createTempFile("rudder", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("com.rudderstack.sdk.java.MessagesDropped");
+      recording.start();
+      analytics.enqueue(TrackMessage.builder("event").userId("user"));
+      analytics.track("user", "event", null);
+      analytics.enqueue(IdentifyMessage.builder().userId("user"));
+      recording.stop();
+      recording.dump(file);
+    } finally {
+      analytics.shutdown();
+    }
+
+    List<String> causes = new ArrayList<>();
+    for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+      assertEquals(1, event.getInt("count"));
+      causes.add(event.getString("cause"));
+    }
+    Files.delete(file);
+    assertEquals(Arrays.asList("sampled", "sampled", "filtered"), causes);
+  }
+}